@@ -9,27 +9,42 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.exparity.data.csv.MappedCsvReader;
+import org.exparity.data.csv.ParallelCsvReader;
+import org.exparity.data.types.Array;
+import org.exparity.data.types.ColumnarTable;
 import org.exparity.data.types.Row;
 import org.exparity.data.types.Row.RowTransform;
 import org.exparity.data.types.Scalar;
+import org.exparity.data.types.ScalarDictionary;
 import org.exparity.data.types.Table;
+import org.exparity.data.types.TableSchema;
+import org.exparity.data.types.writers.CsvTableWriter;
 import org.exparity.io.TextDataSource;
 import org.exparity.io.classpath.JcpFile;
 import org.exparity.io.filesystem.FileSystemFile;
 import org.exparity.io.internet.InternetFile;
 
 import au.com.bytecode.opencsv.CSVReader;
-import au.com.bytecode.opencsv.CSVWriter;
 
 /**
  * Encapsulation of data held in comma-seperator or CSV format
@@ -124,6 +139,77 @@ public class CSV {
         return read(FileSystemFile.open(source), hasHeader);
     }
 
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a file, sharing repeated values within each column
+     * through a {@link ScalarDictionary}.
+     *
+     * @param source The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param dictionary The dictionary to share values through
+     * @return A Csv instance
+     */
+    public static CSV openFile(final File source, final boolean hasHeader, final ScalarDictionary dictionary)
+            throws IOException {
+        return read(FileSystemFile.open(source), hasHeader, dictionary);
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a file which is read through a memory mapping rather
+     * than being buffered on the heap before it is parsed.
+     *
+     * @param source The location of the file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A Csv instance
+     */
+    public static CSV openMappedFile(final String source, final boolean hasHeader) throws IOException {
+        return openMappedFile(new File(source), hasHeader);
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a file which is read through a memory mapping rather
+     * than being buffered on the heap before it is parsed.
+     *
+     * @param source The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A Csv instance
+     */
+    public static CSV openMappedFile(final File source, final boolean hasHeader) throws IOException {
+        return openMappedFile(source, hasHeader, null);
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a file which is read through a memory mapping rather
+     * than being buffered on the heap before it is parsed, sharing repeated values within each column through a
+     * {@link ScalarDictionary}.
+     *
+     * @param source The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param dictionary The dictionary to share values through or null to hold every value separately
+     * @return A Csv instance
+     */
+    public static CSV openMappedFile(final File source, final boolean hasHeader, final ScalarDictionary dictionary)
+            throws IOException {
+        try (MappedCsvReader reader = MappedCsvReader.open(source, hasHeader)) {
+            Table.Builder table = Table.builder().setHeader(reader.getHeader()).setDictionary(dictionary);
+            while (reader.next()) {
+                table.addRow(reader.getFields());
+            }
+            return new CSV(table.build());
+        }
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a file which is split into chunks and parsed in
+     * parallel on the common fork-join pool. Use {@link ParallelCsvReader} directly to control the pool and chunk size.
+     *
+     * @param source The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A Csv instance
+     */
+    public static CSV openFileInParallel(final File source, final boolean hasHeader) throws IOException {
+        return new CSV(ParallelCsvReader.newReader().read(source, hasHeader));
+    }
+
     /**
      * Factory method to instantiate a {@link CSV} instance from a {@link String}.
      *
@@ -134,7 +220,7 @@ public class CSV {
     public static CSV read(final Reader source, final boolean hasHeader) throws IOException {
         CSVReader reader = new CSVReader(source);
         try {
-            return read(reader, hasHeader);
+            return read(reader, hasHeader, (ScalarDictionary) null);
         } finally {
             reader.close();
         }
@@ -150,7 +236,7 @@ public class CSV {
     public static CSV read(final InputStream source, final boolean hasHeader) throws IOException {
         CSVReader reader = new CSVReader(new InputStreamReader(source));
         try {
-            return read(reader, hasHeader);
+            return read(reader, hasHeader, (ScalarDictionary) null);
         } finally {
             reader.close();
         }
@@ -165,16 +251,190 @@ public class CSV {
      * @throws BadFormatException Thrown if data is not valid CSV data
      */
     public static CSV read(final TextDataSource source, final boolean hasHeader) throws IOException {
+        return read(source, hasHeader, (ScalarDictionary) null);
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a {@link TextDataSource}, sharing repeated values within
+     * each column through a {@link ScalarDictionary}.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param dictionary The dictionary to share values through or null to hold every value separately
+     * @return A {@link CSV} instance
+     * @throws BadFormatException Thrown if data is not valid CSV data
+     */
+    public static CSV read(final TextDataSource source, final boolean hasHeader, final ScalarDictionary dictionary)
+            throws IOException {
         CSVReader reader = new CSVReader(source.getReader());
         try {
-            return read(reader, hasHeader);
+            return read(reader, hasHeader, dictionary);
         } finally {
             reader.close();
         }
     }
 
-    private static CSV read(final CSVReader reader, final boolean hasHeader) throws IOException {
-        Table table = Table.empty();
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a {@link Reader}, converting the columns declared in the
+     * schema as the data is read. The data is held in a {@link ColumnarTable}.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param schema The types of the columns within the data
+     * @return A Csv instance
+     * @throws BadFormatException Thrown if a value cannot be converted to the type declared for its column
+     */
+    public static CSV read(final Reader source, final boolean hasHeader, final TableSchema schema) throws IOException {
+        try (CSVReader reader = new CSVReader(source)) {
+            return read(reader, hasHeader, schema);
+        }
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from an {@link InputStream}, converting the columns declared
+     * in the schema as the data is read. The data is held in a {@link ColumnarTable}.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param schema The types of the columns within the data
+     * @return A Csv instance
+     * @throws BadFormatException Thrown if a value cannot be converted to the type declared for its column
+     */
+    public static CSV read(final InputStream source, final boolean hasHeader, final TableSchema schema)
+            throws IOException {
+        return read(new InputStreamReader(source), hasHeader, schema);
+    }
+
+    /**
+     * Factory method to instantiate a {@link CSV} instance from a {@link TextDataSource}, converting the columns
+     * declared in the schema as the data is read. The data is held in a {@link ColumnarTable}.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param schema The types of the columns within the data
+     * @return A Csv instance
+     * @throws BadFormatException Thrown if a value cannot be converted to the type declared for its column
+     */
+    public static CSV read(final TextDataSource source, final boolean hasHeader, final TableSchema schema)
+            throws IOException {
+        return read(source.getReader(), hasHeader, schema);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of {@link Row}s from a file. Rows are read from the file on demand so
+     * the file is never held in memory in its entirety. The stream must be closed to release the file.
+     *
+     * @param source The location of the file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A {@link Stream} of {@link Row}s sharing the header, if present
+     */
+    public static Stream<Row> streamFile(final String source, final boolean hasHeader) throws IOException {
+        return stream(FileSystemFile.openFileStream(source), hasHeader);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of {@link Row}s from a file. Rows are read from the file on demand so
+     * the file is never held in memory in its entirety. The stream must be closed to release the file.
+     *
+     * @param source The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A {@link Stream} of {@link Row}s sharing the header, if present
+     */
+    public static Stream<Row> streamFile(final File source, final boolean hasHeader) throws IOException {
+        return streamFile(source.getAbsolutePath(), hasHeader);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of {@link Row}s from a {@link Reader}. The reader is closed when the
+     * stream is closed.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A {@link Stream} of {@link Row}s sharing the header, if present
+     */
+    public static Stream<Row> stream(final Reader source, final boolean hasHeader) throws IOException {
+        return stream(new CSVReader(source), hasHeader);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of {@link Row}s from an {@link InputStream}. The input stream is
+     * closed when the stream is closed.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A {@link Stream} of {@link Row}s sharing the header, if present
+     */
+    public static Stream<Row> stream(final InputStream source, final boolean hasHeader) throws IOException {
+        return stream(new CSVReader(new InputStreamReader(source)), hasHeader);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of {@link Row}s from a {@link TextDataSource}. The reader obtained
+     * from the source is closed when the stream is closed.
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @return A {@link Stream} of {@link Row}s sharing the header, if present
+     */
+    public static Stream<Row> stream(final TextDataSource source, final boolean hasHeader) throws IOException {
+        return stream(new CSVReader(source.getReader()), hasHeader);
+    }
+
+    private static Stream<Row> stream(final CSVReader reader, final boolean hasHeader) throws IOException {
+        try {
+            List<String> header = Collections.emptyList();
+            if (hasHeader) {
+                String[] row = readNextNonEmpty(reader);
+                if (row != null) {
+                    header = Collections.unmodifiableList(Arrays.asList(row));
+                }
+            }
+            Iterator<Row> rows = new CSVRowIterator(reader, header);
+            return StreamSupport
+                    .stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private static String[] readNextNonEmpty(final CSVReader reader) throws IOException {
+        String[] row;
+        do {
+            row = reader.readNext();
+        } while (row != null && row.length == 0);
+        return row;
+    }
+
+    private static CSV read(final CSVReader reader, final boolean hasHeader, final ScalarDictionary dictionary)
+            throws IOException {
+        Table.Builder table = Table.builder().setDictionary(dictionary);
+        while (true) {
+            String[] row = reader.readNext();
+            if (row == null) {
+                break;
+            } else
+                if (row.length > 0) {
+                    if (hasHeader && !table.hasHeader()) {
+                        table.setHeader(row);
+                    } else {
+                        table.addRow(row);
+                    }
+                }
+        }
+        return new CSV(table.build());
+    }
+
+    private static CSV read(final CSVReader reader, final boolean hasHeader, final TableSchema schema)
+            throws IOException {
+        ColumnarTable.Builder table = ColumnarTable.newBuilder().setSchema(schema);
         while (true) {
             String[] row = reader.readNext();
             if (row == null) {
@@ -182,13 +442,13 @@ public class CSV {
             } else
                 if (row.length > 0) {
                     if (hasHeader && !table.hasHeader()) {
-                        table = table.setHeader(row);
+                        table.setHeader(row);
                     } else {
-                        table = table.addRow(row);
+                        table.addRow(row);
                     }
                 }
         }
-        return new CSV(table);
+        return new CSV(table.build());
     }
 
     public static CSV of(final Table table) {
@@ -196,6 +456,7 @@ public class CSV {
     }
 
     private final Table table;
+    private volatile Map<String, Integer> headerIndexes;
 
     private CSV(final Table table) {
         this.table = table;
@@ -205,12 +466,14 @@ public class CSV {
      * Write the contents of the {@link CSV} out to the target {@link OutputStream}
      */
     public void writeTo(final OutputStream target) throws IOException {
-        try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(target))) {
-            if (table.hasHeader()) {
-                writer.writeNext(table.getHeader().toArray(new String[0]));
-            }
-            table.rows().forEach(row -> writer.writeNext(row.asStringArray()));
-        }
+        new CsvTableWriter().write(table, target);
+    }
+
+    /**
+     * Write the contents of the {@link CSV} out to the target {@link OutputStream} in the supplied {@link Charset}
+     */
+    public void writeTo(final OutputStream target, final Charset charset) throws IOException {
+        new CsvTableWriter(charset).write(table, target);
     }
 
     public boolean isEmpty() {
@@ -271,15 +534,20 @@ public class CSV {
      * Return the value of the header for the given index or return null if this document does not have a header
      */
     public int getColumnIndexByHeader(final String label) {
-        if (table.hasHeader()) {
-            int idx = 0;
-            for (String header : getHeaders()) {
-                if (header.equalsIgnoreCase(label)) {
-                    return idx;
+        if (table.hasHeader() && label != null) {
+            Map<String, Integer> headerIndexes = this.headerIndexes;
+            if (headerIndexes == null) {
+                headerIndexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                String[] headers = getHeaders();
+                for (int idx = 0; idx < headers.length; ++idx) {
+                    if (headers[idx] != null) {
+                        headerIndexes.putIfAbsent(headers[idx], idx);
+                    }
                 }
-                ++idx;
+                this.headerIndexes = headerIndexes;
             }
-            return Row.COLUMN_NOT_FOUND;
+            Integer idx = headerIndexes.get(label);
+            return idx != null ? idx : Row.COLUMN_NOT_FOUND;
         } else {
             return Row.COLUMN_NOT_FOUND;
         }
@@ -366,4 +634,39 @@ public class CSV {
     public Map<String, String> asMap(final int keyIndex, final int valueIndex) {
         return table.asMap(keyIndex, valueIndex);
     }
+
+    /**
+     * {@link Iterator} which reads one {@link Row} ahead from a {@link CSVReader}
+     */
+    private static final class CSVRowIterator implements Iterator<Row> {
+
+        private final CSVReader reader;
+        private final List<String> header;
+        private String[] next;
+
+        private CSVRowIterator(final CSVReader reader, final List<String> header) throws IOException {
+            this.reader = reader;
+            this.header = header;
+            this.next = readNextNonEmpty(reader);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Row next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Row row = Row.of(Array.of(next), header);
+            try {
+                next = readNextNonEmpty(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return row;
+        }
+    }
 }
@@ -11,17 +11,17 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
-import javax.xml.namespace.NamespaceContext;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -31,12 +31,9 @@ import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.exparity.data.html.HtmlCleanerXmlFactory;
@@ -44,10 +41,12 @@ import org.exparity.data.types.Pair;
 import org.exparity.data.xml.MarshallFailedException;
 import org.exparity.data.xml.TransformFailedException;
 import org.exparity.data.xml.ValidationResult;
+import org.exparity.data.xml.XPathCache;
 import org.exparity.data.xml.XmlFactory;
 import org.exparity.data.xml.XmlMarshaller;
 import org.exparity.data.xml.XmlMatcher;
 import org.exparity.data.xml.XmlParser;
+import org.exparity.data.xml.XmlRecordReader;
 import org.exparity.data.xml.XmlSelector;
 import org.exparity.data.xml.XmlTransformer;
 import org.exparity.data.xml.XmlValidator;
@@ -169,7 +168,51 @@ public class XML extends Text {
     }
 
     public static XML of(final String xml, final XmlParser parser) {
-        return read(new ByteArrayInputStream(xml.getBytes()), parser);
+        return parser.parse(new StringReader(xml));
+    }
+
+    /**
+     * Factory method to open a lazily read stream of the records within a file. See {@link XmlRecordReader}. The
+     * stream must be closed to release the file.
+     *
+     * @param source The location of the file
+     * @param recordPath The path of the elements to return as records, for example <code>/feed/item</code>
+     */
+    public static Stream<XML> streamFile(final String source, final String recordPath) throws IOException {
+        return stream(FileSystemFile.openFileStream(source), recordPath);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of the records within a file. See {@link XmlRecordReader}. The
+     * stream must be closed to release the file.
+     *
+     * @param source The file
+     * @param recordPath The path of the elements to return as records, for example <code>/feed/item</code>
+     */
+    public static Stream<XML> streamFile(final File source, final String recordPath) throws IOException {
+        return streamFile(source.getAbsolutePath(), recordPath);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of the records within a {@link TextDataSource}. See
+     * {@link XmlRecordReader}. The input stream obtained from the source is closed when the stream is closed.
+     *
+     * @param source The XML document
+     * @param recordPath The path of the elements to return as records, for example <code>/feed/item</code>
+     */
+    public static Stream<XML> stream(final TextDataSource source, final String recordPath) {
+        return stream(source.getStream(), recordPath);
+    }
+
+    /**
+     * Factory method to open a lazily read stream of the records within an {@link InputStream}. See
+     * {@link XmlRecordReader}. The input stream is closed when the stream is closed.
+     *
+     * @param source The XML document
+     * @param recordPath The path of the elements to return as records, for example <code>/feed/item</code>
+     */
+    public static Stream<XML> stream(final InputStream source, final String recordPath) {
+        return XmlRecordReader.open(source, recordPath).stream();
     }
 
     /**
@@ -196,7 +239,7 @@ public class XML extends Text {
     public List<Node> findNodesByXpath(final String xpath) {
         List<Node> found = new ArrayList<>();
         try {
-            NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().compile(xpath).evaluate(document,
+            NodeList nodes = (NodeList) XPathCache.getDefault().compile(xpath).evaluate(document,
                     XPathConstants.NODESET);
             for (int i = 0; i < nodes.getLength(); ++i) {
                 found.add(nodes.item(i));
@@ -213,7 +256,7 @@ public class XML extends Text {
 
     public String findTextByXpath(final String xpath) {
         try {
-            return XPathFactory.newInstance().newXPath().compile(xpath).evaluate(document);
+            return XPathCache.getDefault().compile(xpath).evaluate(document);
         } catch (XPathExpressionException e) {
             Throwable rootCause = ExceptionUtils.getRootCause(e);
             LOG.error("Failed to evaluated xpath. Error [" + rootCause.getClass().getSimpleName()
@@ -226,46 +269,8 @@ public class XML extends Text {
 
     @SuppressWarnings("unchecked")
     public String findTextByXpath(final String xpath, final Pair<String, String>... namespaces) {
-        final XPath instance = XPathFactory.newInstance().newXPath();
-
-        if (ArrayUtils.isNotEmpty(namespaces)) {
-            instance.setNamespaceContext(new NamespaceContext() {
-
-                @Override
-                public Iterator<String> getPrefixes(final String namespaceURI) {
-                    List<String> prefixes = new ArrayList<>();
-                    for (Pair<String, String> namespace : namespaces) {
-                        if (namespace.getValue2().equals(namespaceURI)) {
-                            prefixes.add(namespace.getValue1());
-                        }
-                    }
-                    return prefixes.iterator();
-                }
-
-                @Override
-                public String getPrefix(final String namespaceURI) {
-                    for (Pair<String, String> namespace : namespaces) {
-                        if (namespace.getValue2().equals(namespaceURI)) {
-                            return namespace.getValue1();
-                        }
-                    }
-                    return null;
-                }
-
-                @Override
-                public String getNamespaceURI(final String prefix) {
-                    for (Pair<String, String> namespace : namespaces) {
-                        if (namespace.getValue1().equals(prefix)) {
-                            return namespace.getValue2();
-                        }
-                    }
-                    return null;
-                }
-            });
-        }
-
         try {
-            final String result = instance.compile(xpath).evaluate(document);
+            final String result = XPathCache.getDefault().compile(xpath, namespaces).evaluate(document);
             return StringUtils.isEmpty(result) ? null : result.trim();
         } catch (XPathExpressionException e) {
             LOG.error("Failed to evaluated xpath. Error [" + e.getClass().getSimpleName() + ":" + e.getMessage() + "]");
@@ -275,7 +280,7 @@ public class XML extends Text {
 
     public Boolean findBooleanByXpath(final String xpath) {
         try {
-            return (Boolean) XPathFactory.newInstance().newXPath().compile(xpath).evaluate(document,
+            return (Boolean) XPathCache.getDefault().compile(xpath).evaluate(document,
                     XPathConstants.BOOLEAN);
         } catch (XPathExpressionException e) {
             LOG.error("Failed to evaluated xpath. Error [" + e.getClass().getSimpleName() + ":" + e.getMessage() + "]");
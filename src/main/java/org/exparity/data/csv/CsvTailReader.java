@@ -0,0 +1,176 @@
+/*
+ *
+ */
+
+package org.exparity.data.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.types.AppendableTable;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.ScalarDictionary;
+import org.exparity.data.types.Table;
+
+/**
+ * Tails a CSV file which is being appended to, such as an intraday feed. Each call to {@link #poll()} reads only the
+ * records appended since the previous call, starting from the byte offset where the previous call stopped, and
+ * appends them to an {@link AppendableTable}. Readers take consistent snapshots of the table with {@link #snapshot()}
+ * without blocking the poll.
+ * <p>
+ * A record is only read once the newline which ends it has been written, so a record which is part way through being
+ * written is left for a later poll. The offset can be saved with {@link #getOffset()} and passed to
+ * {@link #setOffset(long)} to resume tailing from the same point after a restart. The file must be in the format
+ * described by {@link MappedCsvReader} and each record must end with LF or CRLF.
+ *
+ * <pre>
+ * CsvTailReader feed = CsvTailReader.open(new File("prices.csv"), true);
+ * feed.poll();
+ * Table prices = feed.snapshot();
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class CsvTailReader {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+    private static final int SCAN_SIZE = 16 << 20;
+    private static final byte QUOTE = '"', LF = '\n';
+
+    /**
+     * Create a reader which tails a file from its start using the platform charset
+     *
+     * @param file The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     */
+    public static CsvTailReader open(final File file, final boolean hasHeader) {
+        Validate.notNull(file, "File cannot be null");
+        return new CsvTailReader(file, hasHeader);
+    }
+
+    private final File file;
+    private final boolean hasHeader;
+    private final AppendableTable table = AppendableTable.newTable();
+    private Charset charset = Charset.defaultCharset();
+    private ScalarDictionary dictionary;
+    private long offset;
+    private boolean headerRead;
+
+    private CsvTailReader(final File file, final boolean hasHeader) {
+        this.file = file;
+        this.hasHeader = hasHeader;
+    }
+
+    public synchronized CsvTailReader setCharset(final Charset charset) {
+        Validate.notNull(charset, "Charset cannot be null");
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Share repeated values within each column through a {@link ScalarDictionary}. Defaults to null, in which case
+     * every value is held separately.
+     */
+    public synchronized CsvTailReader setDictionary(final ScalarDictionary dictionary) {
+        this.dictionary = dictionary;
+        return this;
+    }
+
+    /**
+     * Set the byte offset to resume reading from, which must be an offset previously returned by
+     * {@link #getOffset()} for the same file. The header, if the file has one, is still read from the start of the
+     * file.
+     */
+    public synchronized CsvTailReader setOffset(final long offset) {
+        Validate.isTrue(offset >= 0, "Offset cannot be negative");
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return the byte offset of the end of the last record read
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Read the complete records appended to the file since the last poll
+     *
+     * @return the number of rows read
+     * @throws IOException if the file cannot be read or is now shorter than the offset already read, as happens when
+     *             a feed is truncated or rolled over
+     */
+    public synchronized int poll() throws IOException {
+        long end;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                throw new IOException("File '" + file + "' is shorter than the " + offset + " bytes already read");
+            }
+            end = findEndOfLastRecord(channel, offset, size);
+        }
+        if (hasHeader && !headerRead && offset > 0) {
+            try (MappedCsvReader reader = new MappedCsvReader(file, 0, offset, true, charset, WINDOW_SIZE)) {
+                table.setHeader(reader.getHeader());
+            }
+            headerRead = true;
+        }
+        if (end <= offset) {
+            return 0;
+        }
+
+        boolean readHeader = hasHeader && !headerRead;
+        List<Row> rows = new ArrayList<>();
+        try (MappedCsvReader reader = new MappedCsvReader(file, offset, end, readHeader, charset, WINDOW_SIZE)) {
+            if (readHeader) {
+                table.setHeader(reader.getHeader());
+                headerRead = true;
+            }
+            while (reader.next()) {
+                String[] fields = reader.getFields();
+                rows.add(dictionary != null ? Row.of(dictionary.intern(fields)) : Row.of(fields));
+            }
+        }
+        table.append(rows);
+        offset = end;
+        return rows.size();
+    }
+
+    /**
+     * Return an immutable table of the rows read so far. See {@link AppendableTable#snapshot()}.
+     */
+    public Table snapshot() {
+        return table.snapshot();
+    }
+
+    /**
+     * Return the offset just past the last newline between two offsets which is not within a quoted field, or the
+     * first offset if there is no such newline
+     */
+    private static long findEndOfLastRecord(final FileChannel channel, final long from, final long to)
+            throws IOException {
+        long end = from;
+        boolean inQuotes = false;
+        for (long start = from; start < to; start += SCAN_SIZE) {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SCAN_SIZE, to - start));
+            for (int i = 0; i < region.limit(); ++i) {
+                byte b = region.get(i);
+                if (b == QUOTE) {
+                    inQuotes = !inQuotes;
+                } else
+                    if (b == LF && !inQuotes) {
+                        end = start + i + 1;
+                    }
+            }
+        }
+        return end;
+    }
+}
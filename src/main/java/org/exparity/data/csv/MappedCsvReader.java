@@ -0,0 +1,422 @@
+/*
+ *
+ */
+
+package org.exparity.data.csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+import org.exparity.data.types.Array;
+import org.exparity.data.types.Row;
+
+/**
+ * Reads CSV records from a memory-mapped file. The file is tokenised directly from the mapped bytes and each field of
+ * the current record is held as an offset into the mapping, so no {@link String} is created until a field's value is
+ * requested. Files larger than the mapping window are mapped one window at a time, with the OS page cache doing the
+ * buffering.
+ * <p>
+ * Records follow RFC 4180: fields are separated by commas, records by LF or CRLF, and fields may be enclosed in double
+ * quotes, in which case they may contain commas, newlines and doubled quotes. Blank lines are skipped. The file must
+ * be in a charset in which these characters are single bytes, such as UTF-8 or ISO-8859-1.
+ * <p>
+ * A reader is a cursor and is not thread safe. Call {@link #next()} to advance to each record in turn.
+ *
+ * @author Stewart Bissett
+ */
+public class MappedCsvReader implements Closeable {
+
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+    private static final byte QUOTE = '"', SEPARATOR = ',', CR = '\r', LF = '\n';
+
+    /**
+     * Open a file for memory-mapped reading using the platform charset
+     *
+     * @param filename The location of the file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     */
+    public static MappedCsvReader open(final String filename, final boolean hasHeader) throws IOException {
+        return open(new File(filename), hasHeader);
+    }
+
+    /**
+     * Open a file for memory-mapped reading using the platform charset
+     *
+     * @param file The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     */
+    public static MappedCsvReader open(final File file, final boolean hasHeader) throws IOException {
+        return open(file, hasHeader, Charset.defaultCharset());
+    }
+
+    /**
+     * Open a file for memory-mapped reading
+     *
+     * @param file The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param charset The charset the file is encoded in
+     */
+    public static MappedCsvReader open(final File file, final boolean hasHeader, final Charset charset)
+            throws IOException {
+        return new MappedCsvReader(file, hasHeader, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final long end, windowSize;
+    private final List<String> header;
+    private ByteBuffer window;
+    private long windowStart, position;
+    private int numOfFields;
+    private int[] starts = new int[16], ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private byte[] scratch = new byte[256];
+
+    MappedCsvReader(final File file, final boolean hasHeader, final Charset charset, final long windowSize)
+            throws IOException {
+        this(file, 0, file.length(), hasHeader, charset, windowSize);
+    }
+
+    /**
+     * Create a reader over the records between two byte offsets of a file. The offsets must fall on record
+     * boundaries.
+     */
+    MappedCsvReader(final File file,
+            final long from,
+            final long to,
+            final boolean hasHeader,
+            final Charset charset,
+            final long windowSize) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        Validate.notNull(charset, "Charset cannot be null");
+        Validate.isTrue(windowSize > 0 && windowSize <= Integer.MAX_VALUE, "Window size must be a positive int");
+        Validate.isTrue(from >= 0 && from <= to, "Invalid byte range " + from + " to " + to);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.charset = charset;
+        this.windowSize = windowSize;
+        this.position = from;
+        try {
+            this.end = Math.min(to, channel.size());
+            this.header = readHeader(hasHeader);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create a reader over the records between two offsets of a buffer already held in memory. The offsets must fall on
+     * record boundaries.
+     */
+    MappedCsvReader(final ByteBuffer buffer,
+            final int from,
+            final int to,
+            final boolean hasHeader,
+            final Charset charset) throws IOException {
+        Validate.notNull(buffer, "Buffer cannot be null");
+        Validate.notNull(charset, "Charset cannot be null");
+        Validate.isTrue(from >= 0 && from <= to && to <= buffer.limit(), "Invalid byte range " + from + " to " + to);
+        this.channel = null;
+        this.charset = charset;
+        this.windowSize = to;
+        this.end = to;
+        this.position = from;
+        this.window = buffer.duplicate();
+        this.window.limit(to);
+        this.windowStart = 0;
+        this.header = readHeader(hasHeader);
+    }
+
+    /**
+     * Advance to the next record in the file
+     *
+     * @return <code>true</code> if the reader is positioned on a record or <code>false</code> if the end of the file has
+     *         been reached
+     */
+    public boolean next() throws IOException {
+        numOfFields = 0;
+        while (position < end) {
+            if (window == null || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            int offset = (int) (position - windowStart);
+            int next = parseRecord(offset);
+            if (next < 0) {
+                if (windowStart == position) {
+                    throw new BadFormatException("Record at offset " + position + " exceeds the mapping window of "
+                            + windowSize
+                            + " bytes");
+                }
+                map(position);
+                continue;
+            }
+            position = windowStart + next;
+            if (numOfFields == 1 && starts[0] == offset && ends[0] == offset) {
+                numOfFields = 0;
+                continue;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the header of the file or an empty list if the file was opened without a header
+     */
+    public List<String> getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the number of fields in the current record
+     */
+    public int getNumOfFields() {
+        return numOfFields;
+    }
+
+    /**
+     * Return the raw bytes of a field in the current record, excluding any enclosing quotes, as a read-only view over
+     * the mapped file. Doubled quotes within a quoted field are not collapsed. The view is only valid until the reader
+     * is advanced.
+     */
+    public ByteBuffer getFieldBytes(final int index) {
+        checkIndex(index);
+        ByteBuffer view = window.duplicate();
+        view.limit(ends[index]);
+        view.position(starts[index]);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Return the decoded value of a field in the current record
+     */
+    public String getFieldAsString(final int index) {
+        checkIndex(index);
+        int start = starts[index], end = ends[index];
+        if (start == end) {
+            return "";
+        }
+        if (scratch.length < end - start) {
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        }
+        int length = 0;
+        for (int i = start; i < end; ++i) {
+            byte b = window.get(i);
+            scratch[length++] = b;
+            if (b == QUOTE && escaped[index]) {
+                ++i;
+            }
+        }
+        return new String(scratch, 0, length, charset);
+    }
+
+    /**
+     * Return the value of a field in the current record parsed as a long directly from the mapped bytes, or throw a
+     * {@link NumberFormatException} if the field is not an integer
+     */
+    public long getFieldAsLong(final int index) {
+        checkIndex(index);
+        int start = starts[index], end = ends[index];
+        boolean negative = start < end && window.get(start) == '-';
+        int i = negative || (start < end && window.get(start) == '+') ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            return Long.parseLong(getFieldAsString(index));
+        }
+        long value = 0;
+        for (; i < end; ++i) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getFieldAsString(index) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the decoded values of every field in the current record
+     */
+    public String[] getFields() {
+        String[] fields = new String[numOfFields];
+        for (int i = 0; i < numOfFields; ++i) {
+            fields[i] = getFieldAsString(i);
+        }
+        return fields;
+    }
+
+    /**
+     * @return the current record as a {@link Row} sharing the header of the file
+     */
+    public Row getRow() {
+        return Row.of(Array.of(getFields()), header);
+    }
+
+    /**
+     * Return the remaining records as a lazily read {@link Stream} of {@link Row}s. Closing the stream closes the
+     * reader.
+     */
+    public Stream<Row> rows() {
+        Iterator<Row> rows = new Iterator<Row>() {
+
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        hasNext = MappedCsvReader.this.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                return getRow();
+            }
+        };
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Close the underlying file. The mapping itself is released when it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private List<String> readHeader(final boolean hasHeader) throws IOException {
+        if (hasHeader && next()) {
+            return Collections.unmodifiableList(Arrays.asList(getFields()));
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    private void map(final long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start));
+        windowStart = start;
+    }
+
+    /**
+     * Tokenise the record starting at the offset into the current window.
+     *
+     * @return the offset of the start of the next record or -1 if the record is not complete within the window
+     */
+    private int parseRecord(final int offset) {
+        final int limit = window.limit();
+        final boolean atEof = windowStart + limit >= end;
+        numOfFields = 0;
+        int i = offset;
+        while (true) {
+            if (i < limit && window.get(i) == QUOTE) {
+                int start = ++i;
+                boolean escapes = false;
+                while (true) {
+                    if (i >= limit) {
+                        if (atEof) {
+                            throw new BadFormatException("Unterminated quoted field at offset " + (windowStart + start));
+                        }
+                        return -1;
+                    } else
+                        if (window.get(i) == QUOTE) {
+                            if (i + 1 >= limit && !atEof) {
+                                return -1;
+                            } else
+                                if (i + 1 < limit && window.get(i + 1) == QUOTE) {
+                                    escapes = true;
+                                    i += 2;
+                                } else {
+                                    break;
+                                }
+                        } else {
+                            ++i;
+                        }
+                }
+                addField(start, i++, escapes);
+                while (i < limit && !isDelimiter(window.get(i))) {
+                    ++i;
+                }
+            } else {
+                int start = i;
+                while (i < limit && !isDelimiter(window.get(i))) {
+                    ++i;
+                }
+                addField(start, i, false);
+            }
+
+            if (i >= limit) {
+                return atEof ? i : -1;
+            }
+            byte delimiter = window.get(i);
+            if (delimiter == SEPARATOR) {
+                ++i;
+            } else
+                if (delimiter == CR) {
+                    if (i + 1 < limit) {
+                        return window.get(i + 1) == LF ? i + 2 : i + 1;
+                    }
+                    return atEof ? i + 1 : -1;
+                } else {
+                    return i + 1;
+                }
+        }
+    }
+
+    private void addField(final int start, final int end, final boolean escapes) {
+        if (numOfFields == starts.length) {
+            starts = Arrays.copyOf(starts, numOfFields * 2);
+            ends = Arrays.copyOf(ends, numOfFields * 2);
+            escaped = Arrays.copyOf(escaped, numOfFields * 2);
+        }
+        starts[numOfFields] = start;
+        ends[numOfFields] = end;
+        escaped[numOfFields] = escapes;
+        ++numOfFields;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= numOfFields) {
+            throw new IndexOutOfBoundsException("Field " + index + " not found in record of " + numOfFields + " fields");
+        }
+    }
+
+    private static boolean isDelimiter(final byte b) {
+        return b == SEPARATOR || b == CR || b == LF;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *
+ */
+
+package org.exparity.data.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.ScalarDictionary;
+import org.exparity.data.types.Table;
+import org.exparity.io.BinaryDataSource;
+
+/**
+ * Reads a CSV file into a {@link Table} by parsing separate byte ranges of the file in parallel on a
+ * {@link ForkJoinPool}. The file is split into chunks of roughly equal size and each chunk is moved forward to the
+ * start of the first record which begins within it. Record boundaries are found by counting the quotes which precede
+ * each chunk, so newlines within quoted fields are never mistaken for the end of a record. The rows of each chunk are
+ * then joined in their original order.
+ * <p>
+ * The data must be quoted as described in RFC 4180 and use a charset in which commas, quotes and newlines are single
+ * bytes. See {@link MappedCsvReader}.
+ *
+ * @author Stewart Bissett
+ */
+public class ParallelCsvReader {
+
+    private static final long DEFAULT_CHUNK_SIZE = 16L << 20;
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    /**
+     * Create a reader which uses the common {@link ForkJoinPool} and the platform charset
+     */
+    public static ParallelCsvReader newReader() {
+        return new ParallelCsvReader();
+    }
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private Charset charset = Charset.defaultCharset();
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private ScalarDictionary dictionary;
+
+    public ParallelCsvReader setPool(final ForkJoinPool pool) {
+        Validate.notNull(pool, "Pool cannot be null");
+        this.pool = pool;
+        return this;
+    }
+
+    public ParallelCsvReader setCharset(final Charset charset) {
+        Validate.notNull(charset, "Charset cannot be null");
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Set the size in bytes of the chunks the data is split into. Defaults to 16MB.
+     */
+    public ParallelCsvReader setChunkSize(final long chunkSize) {
+        Validate.isTrue(chunkSize > 0 && chunkSize <= WINDOW_SIZE, "Chunk size must be between 1 byte and 1GB");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Share repeated values within each column through a {@link ScalarDictionary}. The dictionary is shared by the
+     * chunks as they are parsed in parallel. Defaults to null, in which case every value is held separately.
+     */
+    public ParallelCsvReader setDictionary(final ScalarDictionary dictionary) {
+        this.dictionary = dictionary;
+        return this;
+    }
+
+    /**
+     * Read a file into a {@link Table}
+     *
+     * @param file The file
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     */
+    public Table read(final File file, final boolean hasHeader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return read(new Source() {
+
+                @Override
+                public long size() throws IOException {
+                    return channel.size();
+                }
+
+                @Override
+                public ByteBuffer region(final long from, final long to) throws IOException {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                }
+
+                @Override
+                public MappedCsvReader reader(final long from, final long to, final boolean hasHeader)
+                        throws IOException {
+                    return new MappedCsvReader(file, from, to, hasHeader, charset, WINDOW_SIZE);
+                }
+            }, hasHeader);
+        }
+    }
+
+    /**
+     * Read the contents of a {@link BinaryDataSource}, for example a
+     * {@link org.exparity.io.filesystem.FileSystemFile}, into a {@link Table}
+     *
+     * @param source The data encoded in CSV format
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     */
+    public Table read(final BinaryDataSource source, final boolean hasHeader) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(source.getBytes());
+        return read(new Source() {
+
+            @Override
+            public long size() {
+                return buffer.limit();
+            }
+
+            @Override
+            public ByteBuffer region(final long from, final long to) {
+                ByteBuffer region = buffer.duplicate();
+                region.limit((int) to);
+                region.position((int) from);
+                return region.slice();
+            }
+
+            @Override
+            public MappedCsvReader reader(final long from, final long to, final boolean hasHeader)
+                    throws IOException {
+                return new MappedCsvReader(buffer, (int) from, (int) to, hasHeader, charset);
+            }
+        }, hasHeader);
+    }
+
+    private Table read(final Source source, final boolean hasHeader) throws IOException {
+        final long size = source.size();
+        final int numOfChunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+
+        List<Callable<Boolean>> counts = new ArrayList<>(numOfChunks);
+        for (int i = 0; i < numOfChunks; ++i) {
+            final long from = i * chunkSize, to = Math.min(size, from + chunkSize);
+            counts.add(() -> hasOddQuotes(source.region(from, to)));
+        }
+        List<Boolean> oddQuotes = invokeAll(counts);
+
+        List<Callable<Long>> starts = new ArrayList<>(numOfChunks);
+        boolean inQuotes = false;
+        for (int i = 0; i < numOfChunks; ++i) {
+            final long from = i * chunkSize;
+            final boolean quoted = inQuotes;
+            starts.add(() -> from == 0 ? 0L : findRecordStart(source, from, size, quoted));
+            inQuotes ^= oddQuotes.get(i);
+        }
+        final List<Long> boundaries = new ArrayList<>(invokeAll(starts));
+        boundaries.add(size);
+
+        List<Callable<List<Row>>> chunks = new ArrayList<>(numOfChunks);
+        final List<List<String>> header = new ArrayList<>(1);
+        for (int i = 0; i < numOfChunks; ++i) {
+            final long from = boundaries.get(i), to = boundaries.get(i + 1);
+            final boolean first = i == 0;
+            chunks.add(() -> {
+                List<Row> rows = new ArrayList<>();
+                try (MappedCsvReader reader = source.reader(from, to, first && hasHeader)) {
+                    if (first) {
+                        header.add(reader.getHeader());
+                    }
+                    while (reader.next()) {
+                        String[] fields = reader.getFields();
+                        rows.add(dictionary != null ? Row.of(dictionary.intern(fields)) : Row.of(fields));
+                    }
+                }
+                return rows;
+            });
+        }
+        List<List<Row>> rows = invokeAll(chunks);
+
+        int numOfRows = 0;
+        for (List<Row> chunk : rows) {
+            numOfRows += chunk.size();
+        }
+        Table.Builder table = Table.builder(numOfRows).setHeader(header.get(0));
+        for (List<Row> chunk : rows) {
+            table.addRows(chunk);
+        }
+        return table.build();
+    }
+
+    private <T> List<T> invokeAll(final List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted whilst reading CSV data");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else {
+                    throw new RuntimeException(e.getCause());
+                }
+        }
+        return results;
+    }
+
+    private static boolean hasOddQuotes(final ByteBuffer region) {
+        boolean odd = false;
+        for (int i = region.position(); i < region.limit(); ++i) {
+            if (region.get(i) == '"') {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    /**
+     * Return the offset of the first record which starts at or after the offset supplied, or the size of the data if no
+     * record starts after it.
+     */
+    private long findRecordStart(final Source source, final long from, final long size, final boolean quoted)
+            throws IOException {
+        boolean inQuotes = quoted;
+        for (long start = from; start < size; start += chunkSize) {
+            ByteBuffer region = source.region(start, Math.min(size, start + chunkSize));
+            for (int i = region.position(); i < region.limit(); ++i) {
+                byte b = region.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else
+                    if (b == '\n' && !inQuotes) {
+                        return start + i + 1;
+                    }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Access to regions of the data being read
+     */
+    private interface Source {
+
+        long size() throws IOException;
+
+        ByteBuffer region(long from, long to) throws IOException;
+
+        MappedCsvReader reader(long from, long to, boolean hasHeader) throws IOException;
+    }
+}
@@ -199,10 +199,10 @@ public class HtmlParserTag extends Tag {
         }
 
         List<Scalar[]> padded = padTableWithBlankColumnsIfRequired(data);
-        Table extract = Table.withHeader(Array.of(headers).asStringArray());
-        for (Scalar[] row : padded) {
-            extract = extract.addRow(row);
-        }
+        Table extract = Table.builder(padded.size())
+                .setHeader(Array.of(headers).asStringArray())
+                .addRows(padded.toArray(new Scalar[0][]))
+                .build();
 
         if (LOG.isTraceEnabled()) {
             try {
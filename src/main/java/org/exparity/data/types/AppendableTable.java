@@ -0,0 +1,117 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A table which grows as rows are appended to it, for example from a live feed, while readers work from consistent
+ * snapshots. Appends are serialised but readers never lock: {@link #snapshot()} returns an immutable {@link Table} of
+ * the rows appended so far which shares the table's storage, so taking a snapshot neither copies the rows nor blocks
+ * an append in progress, and a snapshot never sees rows appended after it was taken.
+ *
+ * <pre>
+ * AppendableTable prices = AppendableTable.withHeader(Arrays.asList("Ticker", "Price"));
+ * prices.append(rows);
+ * Table current = prices.snapshot();
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class AppendableTable {
+
+    private static final Row[] NO_ROWS = new Row[0];
+
+    /**
+     * Create an empty table without a header
+     */
+    public static AppendableTable newTable() {
+        return new AppendableTable(Collections.<String> emptyList());
+    }
+
+    /**
+     * Create an empty table with a header
+     */
+    public static AppendableTable withHeader(final Collection<String> header) {
+        Validate.notNull(header, "Header cannot be null");
+        return new AppendableTable(Collections.unmodifiableList(new ArrayList<>(header)));
+    }
+
+    private Row[] rows = NO_ROWS;
+    private int size;
+    private List<String> header;
+    private volatile Table snapshot;
+
+    private AppendableTable(final List<String> header) {
+        this.header = header;
+        this.snapshot = new Table(header, Collections.<Row> emptyList());
+    }
+
+    /**
+     * Set the header of the table. Snapshots taken before the header was set keep the header they were taken with.
+     */
+    public synchronized AppendableTable setHeader(final Collection<String> header) {
+        Validate.notNull(header, "Header cannot be null");
+        this.header = Collections.unmodifiableList(new ArrayList<>(header));
+        publish();
+        return this;
+    }
+
+    /**
+     * Append a row to the table
+     */
+    public AppendableTable append(final Row row) {
+        Validate.notNull(row, "Row cannot be null");
+        return append(Collections.singletonList(row));
+    }
+
+    /**
+     * Append rows to the table. The rows become visible to readers together once they have all been added.
+     */
+    public synchronized AppendableTable append(final Collection<Row> rows) {
+        Validate.noNullElements(rows, "Rows cannot be null");
+        if (rows.isEmpty()) {
+            return this;
+        }
+        int required = size + rows.size();
+        if (required > this.rows.length) {
+            this.rows = Arrays.copyOf(this.rows, Math.max(required, Math.max(16, this.rows.length * 2)));
+        }
+        for (Row row : rows) {
+            this.rows[size++] = row;
+        }
+        publish();
+        return this;
+    }
+
+    /**
+     * Return an immutable table of the rows appended so far. The snapshot shares storage with this table so is cheap
+     * to take and is unaffected by later appends.
+     */
+    public Table snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the number of rows appended so far
+     */
+    public int getNumOfRows() {
+        return snapshot.getNumOfRows();
+    }
+
+    /**
+     * Publish a snapshot of the rows appended so far. Slots below the size are never written again, and a grown
+     * array is only ever a copy, so the view remains consistent after the volatile write.
+     */
+    private void publish() {
+        this.snapshot = new Table(header, Collections.unmodifiableList(Arrays.asList(rows).subList(0, size)));
+    }
+}
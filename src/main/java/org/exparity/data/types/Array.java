@@ -32,7 +32,7 @@ public class Array implements Iterable<Scalar> {
      * @return a {@link Array}
      */
     public static Array empty() {
-        return new Array(new ArrayList<Scalar>());
+        return new Array(Collections.<Scalar> emptyList());
     }
 
     /**
@@ -41,7 +41,7 @@ public class Array implements Iterable<Scalar> {
      * @return a {@link Row}
      */
     public static Array of(final Collection<Scalar> data) {
-        return new Array(data);
+        return new Array(new ArrayList<>(data));
     }
 
     /**
@@ -50,7 +50,7 @@ public class Array implements Iterable<Scalar> {
      * @return a {@link Row}
      */
     public static Array of(final Scalar[] data) {
-        return new Array(Arrays.asList(data));
+        return new Array(Arrays.asList(data.clone()));
     }
 
     /**
@@ -66,7 +66,7 @@ public class Array implements Iterable<Scalar> {
             for (int i = 0; i < array.length; ++i) {
                 values[i] = new Scalar(array[i]);
             }
-            return of(values);
+            return new Array(Arrays.asList(values));
         }
     }
 
@@ -83,22 +83,37 @@ public class Array implements Iterable<Scalar> {
             for (int i = 0; i < array.length; ++i) {
                 values[i] = new Scalar(array[i]);
             }
-            return of(values);
+            return new Array(Arrays.asList(values));
         }
     }
 
-    private final List<Scalar> values = new ArrayList<>();
+    /**
+     * Factory method to create an array which is a view over a list of scalars rather than a copy of it. The list is
+     * shared, so it must not be modified once the array has been created. Used by tables which hold their values in
+     * their own storage to present a row without copying it.
+     * @param values the {@link List} of {@link Scalar} to view
+     * @return a {@link Array}
+     */
+    static Array view(final List<Scalar> values) {
+        return new Array(values);
+    }
 
-    private Array(final Collection<Scalar> values) {
-        this.values.addAll(values);
+    private final List<Scalar> values;
+
+    /**
+     * Create an array backed by a list which is never modified so it can be shared, without copying, by any array or
+     * row created from this one
+     */
+    private Array(final List<Scalar> values) {
+        this.values = values;
     }
 
     public Array(final Scalar... values) {
-        this(Arrays.asList(values));
+        this(Arrays.asList(values.clone()));
     }
 
     public Array(final Array source) {
-        this.values.addAll(source.values);
+        this(source.values);
     }
 
     public Stream<Scalar> values() {
@@ -178,4 +193,4 @@ public class Array implements Iterable<Scalar> {
     public String toString() {
         return "Array [" + values.size() + "]";
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,536 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+
+/**
+ * A compact binary columnar format for a {@link Table}. Each column is written as a single block holding its null and
+ * blank bitsets followed by its values in the primitive representation of its {@link ColumnType}; text columns are
+ * written as a dictionary of distinct values followed by a code per row. Blocks may be individually deflated. A
+ * footer at the end of the file records the header, the position of each block and summary statistics for each
+ * column so a reader can inspect a file, or locate a single column, without decoding every block. All values are
+ * little-endian.
+ *
+ * <pre>
+ * MAGIC VERSION [block]... footer footerOffset MAGIC
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class BinaryTableFormat {
+
+    private static final int MAGIC = 0x54425845; // "EXBT" read little-endian
+    private static final int VERSION = 1;
+    private static final int PREAMBLE_SIZE = 8, TRAILER_SIZE = 12;
+    private static final byte UNCOMPRESSED = 0, DEFLATED = 1;
+    private static final ColumnType[] TYPES = ColumnType.values();
+
+    /**
+     * Summary of a single column of a binary table as recorded in the footer of the file
+     */
+    public static class ColumnInfo {
+
+        private final ColumnType type;
+        private final byte compression;
+        private final long offset;
+        private final int storedLength, rawLength;
+        private final int nullCount, blankCount, distinctCount;
+        private final double min, max;
+        private final String pattern;
+
+        private ColumnInfo(final ColumnType type,
+                final byte compression,
+                final long offset,
+                final int storedLength,
+                final int rawLength,
+                final int nullCount,
+                final int blankCount,
+                final double min,
+                final double max,
+                final int distinctCount,
+                final String pattern) {
+            this.type = type;
+            this.compression = compression;
+            this.offset = offset;
+            this.storedLength = storedLength;
+            this.rawLength = rawLength;
+            this.nullCount = nullCount;
+            this.blankCount = blankCount;
+            this.min = min;
+            this.max = max;
+            this.distinctCount = distinctCount;
+            this.pattern = pattern;
+        }
+
+        /**
+         * @return the storage type of the column
+         */
+        public ColumnType getType() {
+            return type;
+        }
+
+        /**
+         * @return the number of cells in the column which are missing
+         */
+        public int getNullCount() {
+            return nullCount;
+        }
+
+        /**
+         * @return the number of cells in the column which are blank
+         */
+        public int getBlankCount() {
+            return blankCount;
+        }
+
+        /**
+         * @return the smallest value in a numeric column, the epoch day of the earliest value in a date column, or
+         *         {@link Double#NaN} if the column is text or has no values
+         */
+        public double getMin() {
+            return min;
+        }
+
+        /**
+         * @return the largest value in a numeric column, the epoch day of the latest value in a date column, or
+         *         {@link Double#NaN} if the column is text or has no values
+         */
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * @return the number of distinct values in a text column or -1 for a column of any other type
+         */
+        public int getDistinctCount() {
+            return distinctCount;
+        }
+
+        /**
+         * @return the pattern of a date column or null for a column of any other type
+         */
+        public String getPattern() {
+            return pattern;
+        }
+
+        /**
+         * @return <code>true</code> if the block of the column is deflated
+         */
+        public boolean isCompressed() {
+            return compression == DEFLATED;
+        }
+    }
+
+    /**
+     * Write a table in the binary format. Tables which are not already columnar are first converted with
+     * {@link ColumnarTable#of(Table)}.
+     *
+     * @param table the table to write
+     * @param target the stream to write to, which is left open
+     * @param compress <code>true</code> to deflate each column block
+     */
+    public static void write(final Table table, final OutputStream target, final boolean compress)
+            throws IOException {
+        Validate.notNull(table, "Table cannot be null");
+        Validate.notNull(target, "Target cannot be null");
+        ColumnarTable columnar = ColumnarTable.of(table);
+        TypedColumn[] columns = columnar.getColumns();
+        List<String> header = columnar.getHeader();
+
+        ByteBuffer preamble = allocate(PREAMBLE_SIZE).putInt(MAGIC).putInt(VERSION);
+        target.write(preamble.array());
+        long position = PREAMBLE_SIZE;
+
+        List<ColumnInfo> infos = new ArrayList<>(columns.length);
+        for (TypedColumn column : columns) {
+            byte[] raw = toArray(column.encode());
+            int rawLength = raw.length;
+            byte[] stored = compress ? deflate(raw, rawLength) : raw;
+            int storedLength = compress ? stored.length : rawLength;
+            target.write(stored, 0, storedLength);
+            infos.add(summarise(column, compress ? DEFLATED : UNCOMPRESSED, position, storedLength, rawLength));
+            position += storedLength;
+        }
+
+        byte[][] headers = new byte[header.size()][];
+        int footerSize = 16 + columns.length * 50;
+        for (int i = 0; i < headers.length; ++i) {
+            headers[i] = encode(header.get(i));
+            footerSize += 4 + (headers[i] != null ? headers[i].length : 0);
+        }
+        byte[][] patterns = new byte[columns.length][];
+        for (int i = 0; i < patterns.length; ++i) {
+            patterns[i] = encode(infos.get(i).pattern);
+            footerSize += patterns[i] != null ? patterns[i].length : 0;
+        }
+
+        ByteBuffer footer = allocate(footerSize + TRAILER_SIZE);
+        footer.putInt(columnar.getNumOfRows()).putInt(columnar.getNumOfColumns());
+        footer.putInt(headers.length);
+        for (byte[] bytes : headers) {
+            putBytes(footer, bytes);
+        }
+        footer.putInt(columns.length);
+        for (int i = 0; i < columns.length; ++i) {
+            ColumnInfo info = infos.get(i);
+            footer.put((byte) info.type.ordinal()).put(info.compression);
+            footer.putLong(info.offset).putInt(info.storedLength).putInt(info.rawLength);
+            footer.putInt(info.nullCount).putInt(info.blankCount);
+            footer.putDouble(info.min).putDouble(info.max).putInt(info.distinctCount);
+            putBytes(footer, patterns[i]);
+        }
+        footer.putLong(position).putInt(MAGIC);
+        target.write(footer.array(), 0, footer.position());
+        target.flush();
+    }
+
+    /**
+     * Read a table written in the binary format. The stream is read to its end but not closed.
+     */
+    public static ColumnarTable read(final InputStream is) throws BadFormatException, IOException {
+        Validate.notNull(is, "Input stream cannot be null");
+        return read(ByteBuffer.wrap(IOUtils.toByteArray(is)));
+    }
+
+    /**
+     * Read a table written in the binary format from a buffer holding the whole file, for example a
+     * {@link java.nio.MappedByteBuffer}. The position of the buffer is left unchanged.
+     */
+    public static ColumnarTable read(final ByteBuffer buffer) throws BadFormatException {
+        Footer footer = readFooter(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+        TypedColumn[] columns = new TypedColumn[footer.columns.size()];
+        for (int i = 0; i < columns.length; ++i) {
+            columns[i] = decode(buffer, footer.columns.get(i), footer.numOfRows);
+        }
+        return new ColumnarTable(footer.header, columns, footer.numOfRows, footer.numOfColumns);
+    }
+
+    /**
+     * Read the summary of each column from the footer of a file without decoding any column blocks
+     */
+    public static List<ColumnInfo> readColumnInfo(final ByteBuffer buffer) throws BadFormatException {
+        return Collections.unmodifiableList(readFooter(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)).columns);
+    }
+
+    /**
+     * Map a file written in the binary format into memory and return a table backed directly by the mapping. Only the
+     * footer and the dictionary offsets of text columns are read onto the heap; every value is read from the mapping
+     * as it is accessed, so very large tables can be shared between processes through the operating system's page
+     * cache. Compressed column blocks cannot be read in place and are decoded onto the heap. Each column block must
+     * be smaller than 2GB but the file as a whole may be larger.
+     *
+     * @param file the file to map, which must not be modified while the table is in use
+     */
+    public static ColumnarTable map(final File file) throws BadFormatException, IOException {
+        Validate.notNull(file, "File cannot be null");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Footer footer = readFooter(channel);
+            TypedColumn[] columns = new TypedColumn[footer.columns.size()];
+            for (int i = 0; i < columns.length; ++i) {
+                ColumnInfo info = footer.columns.get(i);
+                ByteBuffer block = channel.map(MapMode.READ_ONLY, info.offset, info.storedLength);
+                columns[i] = decodeBlock(block, info, footer.numOfRows, true);
+            }
+            return new ColumnarTable(footer.header, columns, footer.numOfRows, footer.numOfColumns);
+        }
+    }
+
+    /**
+     * Decode the block of a single column from a buffer holding the whole file
+     */
+    static TypedColumn decode(final ByteBuffer buffer, final ColumnInfo info, final int numOfRows)
+            throws BadFormatException {
+        ByteBuffer block = buffer.duplicate();
+        block.position((int) info.offset);
+        block.limit((int) info.offset + info.storedLength);
+        return decodeBlock(block.slice(), info, numOfRows, false);
+    }
+
+    private static TypedColumn decodeBlock(final ByteBuffer block,
+            final ColumnInfo info,
+            final int numOfRows,
+            final boolean inPlace) throws BadFormatException {
+        try {
+            if (info.compression == DEFLATED) {
+                return TypedColumn.decode(info.type, numOfRows, info.pattern, ByteBuffer.wrap(inflate(block,
+                        info.rawLength)));
+            } else
+                if (inPlace) {
+                    return new MappedColumn(info.type, numOfRows, info.pattern, block);
+                } else {
+                    return TypedColumn.decode(info.type, numOfRows, info.pattern, block);
+                }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new BadFormatException("Column block at offset " + info.offset + " is corrupt", e);
+        }
+    }
+
+    /**
+     * The contents of the footer of a binary table
+     */
+    static final class Footer {
+
+        final int numOfRows, numOfColumns;
+        final List<String> header;
+        final List<ColumnInfo> columns;
+
+        private Footer(final int numOfRows,
+                final int numOfColumns,
+                final List<String> header,
+                final List<ColumnInfo> columns) {
+            this.numOfRows = numOfRows;
+            this.numOfColumns = numOfColumns;
+            this.header = header;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * Validate the preamble and trailer of a file and read its footer
+     *
+     * @param buffer a little-endian view of the whole file
+     */
+    static Footer readFooter(final ByteBuffer buffer) throws BadFormatException {
+        int limit = buffer.limit();
+        if (limit < PREAMBLE_SIZE + TRAILER_SIZE) {
+            throw new BadFormatException("Not a binary table");
+        }
+        long footerOffset = checkFile(buffer.getInt(0),
+                buffer.getInt(4),
+                buffer.getLong(limit - TRAILER_SIZE),
+                buffer.getInt(limit - 4),
+                limit);
+        ByteBuffer footer = buffer.duplicate();
+        footer.position((int) footerOffset);
+        return readFooter(footer.slice().order(ByteOrder.LITTLE_ENDIAN), footerOffset);
+    }
+
+    /**
+     * Validate the preamble and trailer of a file and read its footer without reading any column blocks
+     */
+    static Footer readFooter(final FileChannel channel) throws BadFormatException, IOException {
+        long size = channel.size();
+        if (size < PREAMBLE_SIZE + TRAILER_SIZE) {
+            throw new BadFormatException("Not a binary table");
+        }
+        ByteBuffer preamble = readFully(channel, 0, PREAMBLE_SIZE);
+        ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+        long footerOffset = checkFile(preamble.getInt(0),
+                preamble.getInt(4),
+                trailer.getLong(0),
+                trailer.getInt(8),
+                size);
+        return readFooter(readFully(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset)), footerOffset);
+    }
+
+    private static long checkFile(final int magic,
+            final int version,
+            final long footerOffset,
+            final int trailingMagic,
+            final long size) throws BadFormatException {
+        if (magic != MAGIC || trailingMagic != MAGIC) {
+            throw new BadFormatException("Not a binary table");
+        }
+        if (version != VERSION) {
+            throw new BadFormatException("Unsupported binary table version " + version);
+        }
+        if (footerOffset < PREAMBLE_SIZE || footerOffset > size - TRAILER_SIZE) {
+            throw new BadFormatException("Binary table footer offset " + footerOffset + " is out of range");
+        }
+        return footerOffset;
+    }
+
+    /**
+     * Read a footer from a little-endian buffer which begins at the start of the footer
+     */
+    private static Footer readFooter(final ByteBuffer footer, final long footerOffset) throws BadFormatException {
+        try {
+            int numOfRows = footer.getInt(), numOfColumns = footer.getInt();
+            List<String> header = new ArrayList<>();
+            for (int i = footer.getInt(); i > 0; --i) {
+                header.add(getString(footer));
+            }
+            int numOfStoredColumns = footer.getInt();
+            List<ColumnInfo> columns = new ArrayList<>(numOfStoredColumns);
+            for (int i = 0; i < numOfStoredColumns; ++i) {
+                ColumnType type = TYPES[footer.get()];
+                byte compression = footer.get();
+                long offset = footer.getLong();
+                int storedLength = footer.getInt(), rawLength = footer.getInt();
+                int nullCount = footer.getInt(), blankCount = footer.getInt();
+                double min = footer.getDouble(), max = footer.getDouble();
+                int distinctCount = footer.getInt();
+                String pattern = getString(footer);
+                if (offset < PREAMBLE_SIZE || offset + storedLength > footerOffset) {
+                    throw new BadFormatException("Column block at offset " + offset + " is out of range");
+                }
+                columns.add(new ColumnInfo(type,
+                        compression,
+                        offset,
+                        storedLength,
+                        rawLength,
+                        nullCount,
+                        blankCount,
+                        min,
+                        max,
+                        distinctCount,
+                        pattern));
+            }
+            return new Footer(numOfRows, numOfColumns, header, columns);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new BadFormatException("Binary table footer is corrupt", e);
+        }
+    }
+
+    private static ColumnInfo summarise(final TypedColumn column,
+            final byte compression,
+            final long offset,
+            final int storedLength,
+            final int rawLength) {
+        double min = Double.NaN, max = Double.NaN;
+        ColumnType type = column.getType();
+        if (type != ColumnType.STRING && type != ColumnType.BOOLEAN) {
+            for (int row = 0; row < column.size(); ++row) {
+                if (column.isValue(row)) {
+                    double value = type == ColumnType.DATE ? column.getDate(row, null).toEpochDay()
+                            : column.getDouble(row);
+                    min = Double.isNaN(min) ? value : Math.min(min, value);
+                    max = Double.isNaN(max) ? value : Math.max(max, value);
+                }
+            }
+        }
+        return new ColumnInfo(type,
+                compression,
+                offset,
+                storedLength,
+                rawLength,
+                column.nullCount(),
+                column.blankCount(),
+                min,
+                max,
+                column.distinctCount(),
+                column.getPattern());
+    }
+
+    private static byte[] toArray(final ByteBuffer block) {
+        if (block.hasArray() && block.arrayOffset() == 0 && block.position() == 0
+                && block.remaining() == block.array().length) {
+            return block.array();
+        }
+        byte[] bytes = new byte[block.remaining()];
+        block.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] deflate(final byte[] raw, final int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            byte[] stored = new byte[Math.max(64, length / 2)];
+            int storedLength = 0;
+            while (!deflater.finished()) {
+                if (storedLength == stored.length) {
+                    stored = Arrays.copyOf(stored, stored.length * 2);
+                }
+                storedLength += deflater.deflate(stored, storedLength, stored.length - storedLength);
+            }
+            return Arrays.copyOf(stored, storedLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(final ByteBuffer block, final int rawLength) throws BadFormatException {
+        byte[] stored = new byte[block.remaining()];
+        block.get(stored);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength) {
+                throw new BadFormatException("Compressed column block is truncated");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new BadFormatException("Compressed column block is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final long position, final int length)
+            throws IOException {
+        ByteBuffer buffer = allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Binary table is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer allocate(final int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] encode(final String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putBytes(final ByteBuffer buffer, final byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private BinaryTableFormat() {
+        // Static utility class
+    }
+}
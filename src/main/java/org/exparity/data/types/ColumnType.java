@@ -0,0 +1,62 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+/**
+ * The storage type of a column within a {@link ColumnarTable}. The type is inferred once per column as data is loaded
+ * and determines which primitive representation is used to hold the column's values.
+ *
+ * @author Stewart Bissett
+ */
+public enum ColumnType {
+
+    /**
+     * Every value in the column is <code>true</code> or <code>false</code>
+     */
+    BOOLEAN,
+
+    /**
+     * Every value in the column is an integer within the range of an <code>int</code>
+     */
+    INTEGER,
+
+    /**
+     * Every value in the column is an integer within the range of a <code>long</code>
+     */
+    LONG,
+
+    /**
+     * Every value in the column is a decimal or integer number
+     */
+    DOUBLE,
+
+    /**
+     * The column contains text, or a mix of types which cannot be held in a single primitive representation
+     */
+    STRING,
+
+    /**
+     * Every value in the column is a date in the pattern declared for the column by a {@link TableSchema}. Dates are
+     * never inferred.
+     */
+    DATE;
+
+    /**
+     * Return the narrowest type which can hold values of this type and values of the other type
+     */
+    ColumnType widen(final ColumnType other) {
+        if (other == null || other == this) {
+            return this;
+        }
+        if (!isNumeric() || !other.isNumeric()) {
+            return STRING;
+        }
+        return ordinal() > other.ordinal() ? this : other;
+    }
+
+    private boolean isNumeric() {
+        return this == INTEGER || this == LONG || this == DOUBLE;
+    }
+}
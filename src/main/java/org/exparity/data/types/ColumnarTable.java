@@ -0,0 +1,438 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+
+/**
+ * Implementation of a {@link Table} which stores its data column by column. Each column is held in a primitive array
+ * matching the {@link ColumnType} inferred for the column when the table is loaded; text columns are dictionary
+ * encoded. Cell values are served directly from the column arrays and {@link Row}s and {@link Scalar}s are only created
+ * when explicitly requested. A table written with {@link BinaryTableFormat} can be opened with
+ * {@link BinaryTableFormat#map(java.io.File)} so its columns are read in place from a memory-mapped file rather than
+ * the heap.
+ *
+ * @author Stewart Bissett
+ */
+public class ColumnarTable extends Table {
+
+    /**
+     * Mutable builder which loads rows into a {@link ColumnarTable} in a single pass, inferring the type of each column
+     * as the rows are added.
+     */
+    public static class Builder {
+
+        private final int expectedRows;
+        private final List<TypedColumn.Accumulator> columns = new ArrayList<>();
+        private List<String> header = new ArrayList<>();
+        private TableSchema schema = TableSchema.newSchema();
+        private Map<Integer, TableSchema.ColumnDefinition> definitions;
+        private int numOfRows = 0, numOfColumns = 0;
+        private boolean built = false;
+
+        private Builder(final int expectedRows) {
+            Validate.isTrue(expectedRows >= 0, "Expected rows cannot be negative");
+            this.expectedRows = expectedRows;
+        }
+
+        public Builder setHeader(final String[] header) {
+            return setHeader(Arrays.asList(header));
+        }
+
+        public Builder setHeader(final Collection<String> header) {
+            checkNotBuilt();
+            this.header = new ArrayList<>(header);
+            return this;
+        }
+
+        /**
+         * Set the schema which declares the type of some or all of the columns. Declared columns are converted to
+         * their declared type as each row is added, and a {@link BadFormatException} is thrown for the first value
+         * which cannot be converted. The types of any other columns are inferred. The schema must be set before any
+         * rows are added.
+         */
+        public Builder setSchema(final TableSchema schema) {
+            checkNotBuilt();
+            Validate.notNull(schema, "Schema cannot be null");
+            Validate.isTrue(numOfRows == 0, "Schema must be set before rows are added");
+            this.schema = schema;
+            return this;
+        }
+
+        /**
+         * @return <code>true</code> if a header has been set on this builder
+         */
+        public boolean hasHeader() {
+            return CollectionUtils.isNotEmpty(header);
+        }
+
+        public Builder addRow(final String[] row) {
+            checkNotBuilt();
+            resolveSchema();
+            for (int i = 0; i < row.length; ++i) {
+                append(i, row[i]);
+            }
+            return completeRow(row.length);
+        }
+
+        public Builder addRow(final Array row) {
+            checkNotBuilt();
+            resolveSchema();
+            int width = row.getNumOfValues();
+            for (int i = 0; i < width; ++i) {
+                Scalar value = row.getValue(i);
+                append(i, value != null ? value.getValueAsString() : null);
+            }
+            return completeRow(width);
+        }
+
+        public Builder addRows(final Iterable<? extends Array> rows) {
+            for (Array row : rows) {
+                addRow(row);
+            }
+            return this;
+        }
+
+        public Builder addRows(final Stream<? extends Array> rows) {
+            rows.forEachOrdered(this::addRow);
+            return this;
+        }
+
+        public Builder addRows(final String[][] rows) {
+            for (String[] row : rows) {
+                addRow(row);
+            }
+            return this;
+        }
+
+        /**
+         * Create the {@link ColumnarTable}. The builder cannot be used again once this method has been called.
+         */
+        public ColumnarTable build() {
+            checkNotBuilt();
+            built = true;
+            TypedColumn[] storage = new TypedColumn[columns.size()];
+            for (int i = 0; i < storage.length; ++i) {
+                storage[i] = columns.get(i).build();
+            }
+            return new ColumnarTable(header, storage, numOfRows, numOfColumns);
+        }
+
+        private void resolveSchema() {
+            if (definitions == null) {
+                definitions = schema.resolve(header);
+                for (int columnId : definitions.keySet()) {
+                    getColumn(columnId);
+                }
+            }
+        }
+
+        private void append(final int columnId, final String value) {
+            try {
+                getColumn(columnId).append(value);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                TableSchema.ColumnDefinition definition = definitions.get(columnId);
+                throw new BadFormatException("Invalid value '" + value
+                        + "' at row "
+                        + numOfRows
+                        + ", column "
+                        + columnId
+                        + " for "
+                        + definition
+                        + ". "
+                        + e.getMessage(), value);
+            }
+        }
+
+        private TypedColumn.Accumulator getColumn(final int columnId) {
+            while (columns.size() <= columnId) {
+                TableSchema.ColumnDefinition definition = definitions.get(columns.size());
+                columns.add(definition != null
+                        ? new TypedColumn.Accumulator(expectedRows,
+                                numOfRows,
+                                definition.getType(),
+                                definition.getPattern(),
+                                definition.isNullable())
+                        : new TypedColumn.Accumulator(expectedRows, numOfRows));
+            }
+            return columns.get(columnId);
+        }
+
+        private Builder completeRow(final int width) {
+            for (int i = width; i < columns.size(); ++i) {
+                append(i, null);
+            }
+            if (numOfRows == 0) {
+                numOfColumns = width;
+            }
+            ++numOfRows;
+            return this;
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("Table has already been built by this builder");
+            }
+        }
+    }
+
+    /**
+     * Static factory method to create a {@link Builder} for a new columnar table
+     */
+    public static Builder newBuilder() {
+        return new Builder(16);
+    }
+
+    /**
+     * Static factory method to create a {@link Builder} for a new columnar table pre-sized for the expected number of
+     * rows
+     * @param expectedRows the number of rows the table is expected to hold
+     */
+    public static Builder newBuilder(final int expectedRows) {
+        return new Builder(expectedRows);
+    }
+
+    /**
+     * Static factory method to create a columnar copy of a table
+     * @param table the {@link Table} to copy
+     * @return a {@link ColumnarTable}
+     */
+    public static ColumnarTable of(final Table table) {
+        if (table instanceof ColumnarTable) {
+            return (ColumnarTable) table;
+        }
+        return newBuilder(table.getNumOfRows()).setHeader(table.getHeader()).addRows(table.rowIterator()).build();
+    }
+
+    private final TypedColumn[] columns;
+    private final int numOfRows, numOfColumns;
+
+    ColumnarTable(final List<String> header, final TypedColumn[] columns, final int numOfRows, final int numOfColumns) {
+        super(header);
+        this.columns = columns;
+        this.numOfRows = numOfRows;
+        this.numOfColumns = numOfColumns;
+    }
+
+    /**
+     * @return the storage of each column, which may include columns beyond the width of the first row
+     */
+    TypedColumn[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param columnId The column id of the column
+     * @return the storage type inferred for the column or null if the table has no column with the specified id
+     */
+    public ColumnType getColumnType(final int columnId) {
+        return (columnId >= 0 && columnId < columns.length) ? columns[columnId].getType() : null;
+    }
+
+    @Override
+    public Scalar getValue(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getScalar(rowId) : null;
+    }
+
+    @Override
+    public boolean hasValue(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null && column.isValue(rowId);
+    }
+
+    @Override
+    public String getValueAsString(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getString(rowId) : null;
+    }
+
+    @Override
+    public boolean getValueAsBoolean(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getBoolean(rowId) : null;
+    }
+
+    @Override
+    public double getValueAsDouble(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getDouble(rowId) : null;
+    }
+
+    @Override
+    public Long getValueAsLong(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getLong(rowId) : null;
+    }
+
+    @Override
+    public Integer getValueAsInteger(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getInt(rowId) : null;
+    }
+
+    @Override
+    public LocalDate getValueAsDate(final int rowId, final int columnId, final DateTimeFormatter format) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? column.getDate(rowId, format) : null;
+    }
+
+    @Override
+    public LocalTime getValueAsTime(final int rowId, final int columnId) {
+        TypedColumn column = getColumn(rowId, columnId);
+        return column != null ? LocalTime.parse(column.getString(rowId), DateTimeFormatter.ISO_TIME) : null;
+    }
+
+    @Override
+    public Iterable<Row> rowIterator() {
+        return () -> rows().iterator();
+    }
+
+    @Override
+    public Row getRow(final int rowId) {
+        if (rowId < 0 || rowId >= numOfRows) {
+            return null;
+        }
+        int width = columns.length;
+        while (width > 0 && columns[width - 1].isNull(rowId)) {
+            --width;
+        }
+        return Row.of(Array.view(new RowView(rowId, width)), getHeader());
+    }
+
+    @Override
+    public int getNumOfColumns() {
+        return numOfColumns;
+    }
+
+    @Override
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return numOfRows == 0 && getHeader().isEmpty();
+    }
+
+    @Override
+    public Stream<Row> rows() {
+        return IntStream.range(0, numOfRows).mapToObj(this::getRow);
+    }
+
+    @Override
+    public DoubleStream doubles(final int columnId) {
+        if (columnId < 0 || columnId >= columns.length) {
+            return DoubleStream.empty();
+        }
+        TypedColumn column = columns[columnId];
+        return IntStream.range(0, numOfRows).filter(column::isValue).mapToDouble(column::getDouble);
+    }
+
+    @Override
+    public IntStream ints(final int columnId) {
+        if (columnId < 0 || columnId >= columns.length) {
+            return IntStream.empty();
+        }
+        TypedColumn column = columns[columnId];
+        return IntStream.range(0, numOfRows).filter(column::isValue).map(column::getInt);
+    }
+
+    @Override
+    public LongStream longs(final int columnId) {
+        if (columnId < 0 || columnId >= columns.length) {
+            return LongStream.empty();
+        }
+        TypedColumn column = columns[columnId];
+        return IntStream.range(0, numOfRows).filter(column::isValue).mapToLong(column::getLong);
+    }
+
+    @Override
+    public Table select(final int[] rowIds, final int[] columnIds) {
+        int width = columnIds != null ? columnIds.length : columns.length;
+        TypedColumn[] selected = new TypedColumn[width];
+        for (int i = 0; i < width; ++i) {
+            int columnId = columnIds != null ? columnIds[i] : i;
+            selected[i] = columnId >= 0 && columnId < columns.length ? columns[columnId].gather(rowIds)
+                    : new TypedColumn.Accumulator(rowIds.length, rowIds.length).build();
+        }
+        return new ColumnarTable(columnIds != null ? selectHeader(columnIds) : getHeader(),
+                selected,
+                rowIds.length,
+                columnIds != null ? columnIds.length : numOfColumns);
+    }
+
+    @Override
+    public Table addHeader(final Collection<String> header) {
+        return new ColumnarTable(new ArrayList<>(header), columns, numOfRows, numOfColumns);
+    }
+
+    @Override
+    public Table addRow(final Row row) {
+        return addRows(Collections.singletonList(row));
+    }
+
+    @Override
+    public Table addRows(final List<Row> rows) {
+        return newBuilder(numOfRows + rows.size())
+                .setHeader(getHeader())
+                .addRows(rowIterator())
+                .addRows(rows)
+                .build();
+    }
+
+    /**
+     * A row of the table presented as a list without copying its values out of the columns
+     */
+    private final class RowView extends AbstractList<Scalar> implements RandomAccess {
+
+        private final int rowId, width;
+
+        private RowView(final int rowId, final int width) {
+            this.rowId = rowId;
+            this.width = width;
+        }
+
+        @Override
+        public Scalar get(final int index) {
+            if (index < 0 || index >= width) {
+                throw new IndexOutOfBoundsException("Index " + index + " is outside row of width " + width);
+            }
+            return columns[index].getScalar(rowId);
+        }
+
+        @Override
+        public int size() {
+            return width;
+        }
+    }
+
+    private TypedColumn getColumn(final int rowId, final int columnId) {
+        if (rowId < 0 || rowId >= numOfRows || columnId < 0 || columnId >= columns.length) {
+            return null;
+        }
+        TypedColumn column = columns[columnId];
+        return column.isNull(rowId) ? null : column;
+    }
+}
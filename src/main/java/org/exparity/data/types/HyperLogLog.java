@@ -0,0 +1,83 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+/**
+ * A HyperLogLog sketch which estimates the number of distinct strings it has been shown in a fixed amount of memory.
+ * With the default precision of 14 bits the sketch holds 16K one byte registers and the estimate has a standard error
+ * of around 0.8%.
+ *
+ * @author Stewart Bissett
+ */
+final class HyperLogLog {
+
+    static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    HyperLogLog(final int precision) {
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add(final String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Add every value seen by another sketch of the same precision to this sketch
+     */
+    void merge(final HyperLogLog other) {
+        for (int i = 0; i < registers.length; ++i) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate() {
+        int m = registers.length, zeros = 0;
+        double sum = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                ++zeros;
+            }
+        }
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters of the value followed by the finalisation step of MurmurHash3 so every
+     * bit of the result depends on every character
+     */
+    private static long hash(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); ++i) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53b6c1aL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+
+/**
+ * Storage for a single column of a {@link ColumnarTable} which reads its values in place from an uncompressed block
+ * of the {@link BinaryTableFormat}, typically a memory-mapped region of a file. Each access computes the offset of
+ * the cell within the block so nothing but the positions of the dictionary entries of a text column is held on the
+ * heap.
+ *
+ * @author Stewart Bissett
+ */
+final class MappedColumn extends TypedColumn {
+
+    private final ColumnType type;
+    private final ByteBuffer block;
+    private final String pattern;
+    private final DateTimeFormatter format;
+    private final int blanksOffset, valuesOffset, secondaryOffset;
+    private final int[] entries;
+
+    /**
+     * @param block an uncompressed column block, which is read in place and never modified
+     */
+    MappedColumn(final ColumnType type, final int size, final String pattern, final ByteBuffer block) {
+        super(size, null, null);
+        this.type = type;
+        this.block = block.order(ByteOrder.LITTLE_ENDIAN);
+        this.pattern = pattern;
+        this.format = pattern != null ? DateTimeFormatter.ofPattern(pattern) : null;
+        this.blanksOffset = skipBits(0);
+        this.valuesOffset = skipBits(blanksOffset);
+        switch (type) {
+            case DOUBLE:
+                this.secondaryOffset = valuesOffset + 8 * size;
+                this.entries = null;
+                break;
+            case STRING:
+                this.entries = new int[block.getInt(valuesOffset)];
+                int position = valuesOffset + 4;
+                for (int i = 0; i < entries.length; ++i) {
+                    entries[i] = position;
+                    position += 4 + block.getInt(position);
+                }
+                this.secondaryOffset = position;
+                break;
+            default:
+                this.secondaryOffset = -1;
+                this.entries = null;
+        }
+    }
+
+    @Override
+    ColumnType getType() {
+        return type;
+    }
+
+    @Override
+    String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    boolean isNull(final int row) {
+        return getBit(0, row);
+    }
+
+    @Override
+    boolean isBlank(final int row) {
+        return getBit(blanksOffset, row);
+    }
+
+    @Override
+    int nullCount() {
+        return countBits(0);
+    }
+
+    @Override
+    int blankCount() {
+        return countBits(blanksOffset);
+    }
+
+    @Override
+    protected String text(final int row) {
+        switch (type) {
+            case BOOLEAN:
+                return Boolean.toString(getBit(valuesOffset, row));
+            case INTEGER:
+                return Integer.toString(block.getInt(valuesOffset + 4 * row));
+            case LONG:
+                return Long.toString(block.getLong(valuesOffset + 8 * row));
+            case DOUBLE:
+                double value = block.getDouble(valuesOffset + 8 * row);
+                return getBit(secondaryOffset, row) ? Long.toString((long) value) : Double.toString(value);
+            case DATE:
+                return format.format(LocalDate.ofEpochDay(block.getInt(valuesOffset + 4 * row)));
+            default:
+                int entry = entries[block.getInt(secondaryOffset + 4 * row)];
+                byte[] bytes = new byte[block.getInt(entry)];
+                ByteBuffer view = block.duplicate();
+                view.position(entry + 4);
+                view.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    protected Scalar scalar(final int row) {
+        switch (type) {
+            case BOOLEAN:
+                return new Scalar(getBit(valuesOffset, row));
+            case INTEGER:
+                return new Scalar(block.getInt(valuesOffset + 4 * row));
+            case LONG:
+                return new Scalar(block.getLong(valuesOffset + 8 * row));
+            case DOUBLE:
+                double value = block.getDouble(valuesOffset + 8 * row);
+                return getBit(secondaryOffset, row) ? new Scalar((long) value) : new Scalar(value);
+            default:
+                return super.scalar(row);
+        }
+    }
+
+    @Override
+    int getInt(final int row) {
+        return type == ColumnType.INTEGER && isValue(row) ? block.getInt(valuesOffset + 4 * row) : super.getInt(row);
+    }
+
+    @Override
+    long getLong(final int row) {
+        switch (type) {
+            case INTEGER:
+                return isValue(row) ? block.getInt(valuesOffset + 4 * row) : super.getLong(row);
+            case LONG:
+                return isValue(row) ? block.getLong(valuesOffset + 8 * row) : super.getLong(row);
+            default:
+                return super.getLong(row);
+        }
+    }
+
+    @Override
+    double getDouble(final int row) {
+        switch (type) {
+            case INTEGER:
+                return isValue(row) ? block.getInt(valuesOffset + 4 * row) : super.getDouble(row);
+            case LONG:
+                return isValue(row) ? block.getLong(valuesOffset + 8 * row) : super.getDouble(row);
+            case DOUBLE:
+                return isValue(row) ? block.getDouble(valuesOffset + 8 * row) : super.getDouble(row);
+            default:
+                return super.getDouble(row);
+        }
+    }
+
+    @Override
+    boolean getBoolean(final int row) {
+        return type == ColumnType.BOOLEAN && isValue(row) ? getBit(valuesOffset, row) : super.getBoolean(row);
+    }
+
+    @Override
+    LocalDate getDate(final int row, final DateTimeFormatter format) {
+        return type == ColumnType.DATE && isValue(row) ? LocalDate.ofEpochDay(block.getInt(valuesOffset + 4 * row))
+                : super.getDate(row, format);
+    }
+
+    /**
+     * Copy the selected rows onto the heap. Columns without blanks are copied into a column of the same type;
+     * otherwise the type is inferred again from the text of the selected values so that blanks are kept.
+     */
+    @Override
+    TypedColumn gather(final int[] rowIds) {
+        Accumulator accumulator = blankCount() == 0
+                ? new Accumulator(rowIds.length, 0, type, pattern, true)
+                : new Accumulator(rowIds.length, 0);
+        for (int rowId : rowIds) {
+            accumulator.append(getString(rowId));
+        }
+        return accumulator.build();
+    }
+
+    @Override
+    int distinctCount() {
+        if (type != ColumnType.STRING) {
+            return -1;
+        }
+        BitSet used = new BitSet(entries.length);
+        for (int row = 0; row < size; ++row) {
+            if (isValue(row)) {
+                used.set(block.getInt(secondaryOffset + 4 * row));
+            }
+        }
+        return used.cardinality();
+    }
+
+    /**
+     * The block is already in the layout of the {@link BinaryTableFormat} so is returned as is
+     */
+    @Override
+    ByteBuffer encode() {
+        ByteBuffer encoded = block.duplicate();
+        encoded.clear();
+        return encoded;
+    }
+
+    private boolean getBit(final int offset, final int row) {
+        int word = row >>> 6;
+        return word < block.getInt(offset) && (block.getLong(offset + 4 + 8 * word) & (1L << row)) != 0;
+    }
+
+    private int countBits(final int offset) {
+        int count = 0;
+        for (int word = block.getInt(offset) - 1; word >= 0; --word) {
+            count += Long.bitCount(block.getLong(offset + 4 + 8 * word));
+        }
+        return count;
+    }
+
+    private int skipBits(final int offset) {
+        return offset + 4 + 8 * block.getInt(offset);
+    }
+}
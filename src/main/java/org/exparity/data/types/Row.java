@@ -7,6 +7,7 @@ package org.exparity.data.types;
 import static java.util.stream.Collectors.toList;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -69,15 +70,30 @@ public class Row extends Array {
      * @return a {@link Row}
      */
     public static Row of(final Array data) {
-        return new Row(data);
+        return new Row(data, Collections.emptyList());
     }
 
+    /**
+     * Factory method to create a row from an array which shares the header of the source it was read from. The header
+     * is held by reference so a single header instance can be shared by every row of a table or stream.
+     * @param data a {@link Array}
+     * @param header the header names for the row's columns
+     * @return a {@link Row}
+     */
+    public static Row of(final Array data, final List<String> header) {
+        return new Row(data, header);
+    }
+
+    private final List<String> header;
+
     private Row(final Row source) {
         super(source);
+        this.header = source.header;
     }
 
-    private Row(final Array source) {
+    private Row(final Array source, final List<String> header) {
         super(source);
+        this.header = header;
     }
 
     /**
@@ -111,6 +127,28 @@ public class Row extends Array {
         }
     }
 
+    /**
+     * @return the header shared with this row or an empty list if the row was created without a header
+     */
+    public List<String> getHeader() {
+        return Collections.unmodifiableList(header);
+    }
+
+    /**
+     * @return <code>true</code> if this row carries a header, <code>false</code> if it doesn't
+     */
+    public boolean hasHeader() {
+        return !header.isEmpty();
+    }
+
+    /**
+     * Return the index of the header matching the name specified or {@link Row#COLUMN_NOT_FOUND} if the row has no
+     * header or the header is not found. The match is case specific.
+     */
+    public int getHeaderIndex(final String name) {
+        return header.indexOf(name);
+    }
+
     public boolean isValidColumnIndex(final int index) {
         return super.getNumOfValues() > index;
     }
@@ -10,40 +10,39 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 
-import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.math.NumberUtils;
 
 /**
+ * A single typed value. Text values are held as the raw {@link String} and are only parsed into a number the first
+ * time a numeric accessor is called, so scalars which are only ever read as text pay no conversion cost.
+ *
  * @author Stewart Bissett
  */
 public class Scalar implements Comparable<Scalar> {
 
+    /**
+     * Marker cached in place of the numeric value for text which is not a number
+     */
+    private static final Number NOT_A_NUMBER = new NotANumber();
+
     private final String value;
-    private final Integer intValue;
-    private final Long longValue;
-    private final Double doubleValue;
     private final Boolean booleanValue;
+    private Number numericValue;
 
     public Scalar(final Object object) {
         if (object instanceof String) {
             this.value = (String) object;
-            this.doubleValue = NumberUtils.isNumber(value) ? Double.valueOf(value) : null;
-            this.intValue = NumberUtils.isNumber(value) ? doubleValue.intValue() : null;
-            this.longValue = NumberUtils.isNumber(value) ? doubleValue.longValue() : null;
+            this.numericValue = null;
             this.booleanValue = null;
         } else
             if (object instanceof Number) {
                 this.value = String.valueOf(object);
-                this.intValue = ((Number) object).intValue();
-                this.longValue = ((Number) object).longValue();
-                this.doubleValue = ((Number) object).doubleValue();
+                this.numericValue = (Number) object;
                 this.booleanValue = null;
             } else
                 if (object instanceof Boolean) {
                     this.value = ((Boolean) object).toString();
-                    this.intValue = null;
-                    this.longValue = null;
-                    this.doubleValue = null;
+                    this.numericValue = NOT_A_NUMBER;
                     this.booleanValue = (Boolean) object;
                 } else {
                     throw new IllegalArgumentException("Scalar only supports String, Number, or Boolean values");
@@ -66,7 +65,8 @@ public class Scalar implements Comparable<Scalar> {
      * convertible to a double
      */
     public double getValueAsDouble() {
-        return doubleValue != null ? doubleValue : Double.valueOf(value);
+        Number number = getNumericValue();
+        return number != null ? number.doubleValue() : Double.valueOf(value);
     }
 
     /**
@@ -74,7 +74,8 @@ public class Scalar implements Comparable<Scalar> {
      * convertible to a double
      */
     public BigDecimal getValueAsDecimal() {
-        return doubleValue != null ? BigDecimal.valueOf(doubleValue) : BigDecimal.valueOf(Double.valueOf(value));
+        Number number = getNumericValue();
+        return number != null ? BigDecimal.valueOf(number.doubleValue()) : BigDecimal.valueOf(Double.valueOf(value));
     }
 
     /**
@@ -82,7 +83,8 @@ public class Scalar implements Comparable<Scalar> {
      * to a long
      */
     public long getValueAsLong() {
-        return longValue != null ? longValue : Long.valueOf(value);
+        Number number = getNumericValue();
+        return number != null ? number.longValue() : Long.valueOf(value);
     }
 
     /**
@@ -90,7 +92,8 @@ public class Scalar implements Comparable<Scalar> {
      * convertible to an integer
      */
     public int getValueAsInteger() {
-        return intValue != null ? intValue : Integer.valueOf(value);
+        Number number = getNumericValue();
+        return number != null ? number.intValue() : Integer.valueOf(value);
     }
 
     /**
@@ -112,20 +115,15 @@ public class Scalar implements Comparable<Scalar> {
     @Override
     public int compareTo(final Scalar o) {
         try {
-            if (intValue != null) {
-                return intValue.compareTo(o.getValueAsInteger());
+            Number number = getNumericValue();
+            if (number != null) {
+                return Integer.compare(number.intValue(), o.getValueAsInteger());
             } else
-                if (longValue != null) {
-                    return longValue.compareTo(o.getValueAsLong());
-                } else
-                    if (doubleValue != null) {
-                        return doubleValue.compareTo(o.getValueAsDouble());
-                    } else
-                        if (booleanValue != null) {
-                            return booleanValue.compareTo(o.getValueAsBoolean());
-                        } else {
-                            return value.compareTo(o.value);
-                        }
+                if (booleanValue != null) {
+                    return booleanValue.compareTo(o.getValueAsBoolean());
+                } else {
+                    return value.compareTo(o.value);
+                }
         } catch (NumberFormatException e) {
             return value.compareTo(o.value);
         }
@@ -141,11 +139,52 @@ public class Scalar implements Comparable<Scalar> {
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(11, 21).append(value).toHashCode();
+        return 231 + value.hashCode();
     }
 
     @Override
     public String toString() {
         return value;
     }
+
+    /**
+     * Return the numeric value of the scalar, parsing and caching it on first use, or null if the value is not a number.
+     * The cached value is immutable so concurrent first calls at worst parse the value more than once.
+     */
+    private Number getNumericValue() {
+        Number number = numericValue;
+        if (number == null) {
+            number = NumberUtils.isNumber(value) ? Double.valueOf(value) : NOT_A_NUMBER;
+            numericValue = number;
+        }
+        return number != NOT_A_NUMBER ? number : null;
+    }
+
+    /**
+     * The type of the marker for text which is not a number. It is only compared by identity.
+     */
+    private static final class NotANumber extends Number {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int intValue() {
+            return 0;
+        }
+
+        @Override
+        public long longValue() {
+            return 0;
+        }
+
+        @Override
+        public float floatValue() {
+            return Float.NaN;
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.NaN;
+        }
+    }
 }
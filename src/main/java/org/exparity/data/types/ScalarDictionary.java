@@ -0,0 +1,163 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A dictionary of the distinct values of each column of a table which is used as rows are loaded so that every
+ * repeated value in a column shares a single {@link Scalar}, and so a single {@link String}. Low cardinality columns
+ * such as countries, currencies or statuses then cost one reference per cell rather than a separate value, and
+ * comparing, hashing or grouping by their values reuses the hash cached by the shared instance and short-circuits on
+ * identity.
+ * <p>
+ * Each column holds at most a fixed number of distinct values. Once a column reaches the limit it is treated as high
+ * cardinality: values already in the dictionary are still shared but new values are no longer added. A dictionary is
+ * safe to use from several threads, so the chunks of a parallel read can share one.
+ *
+ * <pre>
+ * Table table = Table.builder().setDictionary(ScalarDictionary.newDictionary()).addRows(rows).build();
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class ScalarDictionary {
+
+    /**
+     * The default maximum number of distinct values held for each column
+     */
+    public static final int DEFAULT_MAX_VALUES = 1 << 16;
+
+    /**
+     * Create a dictionary which holds up to {@link #DEFAULT_MAX_VALUES} distinct values for each column
+     */
+    public static ScalarDictionary newDictionary() {
+        return new ScalarDictionary(DEFAULT_MAX_VALUES);
+    }
+
+    /**
+     * Create a dictionary which holds up to the supplied number of distinct values for each column
+     */
+    public static ScalarDictionary newDictionary(final int maxValuesPerColumn) {
+        Validate.isTrue(maxValuesPerColumn > 0, "Maximum values per column must be positive");
+        return new ScalarDictionary(maxValuesPerColumn);
+    }
+
+    private final int maxValuesPerColumn;
+    private volatile ColumnDictionary[] columns = new ColumnDictionary[0];
+
+    private ScalarDictionary(final int maxValuesPerColumn) {
+        this.maxValuesPerColumn = maxValuesPerColumn;
+    }
+
+    /**
+     * Return the shared scalar for a value of a column, adding it to the dictionary if the column has room, or null if
+     * the value is null
+     */
+    public Scalar intern(final int columnId, final String value) {
+        if (value == null) {
+            return null;
+        }
+        return getColumn(columnId).intern(value, null);
+    }
+
+    /**
+     * Return the shared scalar equal to a scalar of a column, adding the scalar to the dictionary if the column has
+     * room
+     */
+    public Scalar intern(final int columnId, final Scalar value) {
+        if (value == null) {
+            return null;
+        }
+        return getColumn(columnId).intern(value.getValueAsString(), value);
+    }
+
+    /**
+     * Return the shared scalars for each value of a row, taking the index of each value as its column
+     */
+    public Scalar[] intern(final String[] row) {
+        Scalar[] values = new Scalar[row.length];
+        for (int i = 0; i < row.length; ++i) {
+            values[i] = intern(i, row[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Return a row holding the shared scalars for each value of a row, keeping its header
+     */
+    public Row intern(final Row row) {
+        Scalar[] values = new Scalar[row.getNumOfValues()];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = intern(i, row.getValue(i));
+        }
+        return Row.of(Array.view(Arrays.asList(values)), row.getHeader());
+    }
+
+    /**
+     * @return the number of distinct values held for a column
+     */
+    public int getNumOfValues(final int columnId) {
+        ColumnDictionary[] columns = this.columns;
+        return columnId >= 0 && columnId < columns.length ? columns[columnId].values.size() : 0;
+    }
+
+    /**
+     * @return <code>true</code> if a column has reached the maximum number of distinct values and no longer adds new
+     *         values to the dictionary
+     */
+    public boolean isSaturated(final int columnId) {
+        ColumnDictionary[] columns = this.columns;
+        return columnId >= 0 && columnId < columns.length && columns[columnId].saturated;
+    }
+
+    private ColumnDictionary getColumn(final int columnId) {
+        ColumnDictionary[] columns = this.columns;
+        if (columnId < columns.length) {
+            return columns[columnId];
+        }
+        synchronized (this) {
+            columns = this.columns;
+            if (columnId >= columns.length) {
+                ColumnDictionary[] grown = Arrays.copyOf(columns, columnId + 1);
+                for (int i = columns.length; i < grown.length; ++i) {
+                    grown[i] = new ColumnDictionary();
+                }
+                this.columns = columns = grown;
+            }
+            return columns[columnId];
+        }
+    }
+
+    /**
+     * The distinct values of a single column
+     */
+    private final class ColumnDictionary {
+
+        private final ConcurrentMap<String, Scalar> values = new ConcurrentHashMap<>();
+        private volatile boolean saturated;
+
+        private Scalar intern(final String value, final Scalar scalar) {
+            Scalar shared = values.get(value);
+            if (shared != null) {
+                return shared;
+            }
+            Scalar candidate = scalar != null ? scalar : new Scalar(value);
+            if (saturated) {
+                return candidate;
+            }
+            if (values.size() >= maxValuesPerColumn) {
+                saturated = true;
+                return candidate;
+            }
+            shared = values.putIfAbsent(value, candidate);
+            return shared != null ? shared : candidate;
+        }
+    }
+}
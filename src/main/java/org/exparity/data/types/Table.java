@@ -16,9 +16,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -26,6 +31,8 @@ import org.apache.commons.lang.Validate;
 import org.exparity.data.BadFormatException;
 import org.exparity.data.types.Row.RowTransform;
 import org.exparity.data.types.readers.CsvTableReader;
+import org.exparity.data.types.transforms.TableJoin;
+import org.exparity.data.types.transforms.TableSort;
 import org.exparity.data.types.transforms.TableToMapTransform;
 import org.exparity.data.types.writers.CsvTableWriter;
 
@@ -66,6 +73,146 @@ public class Table {
         public T apply(Table table);
     }
 
+    /**
+     * Mutable builder which accumulates a header and rows and produces an immutable {@link Table} once all rows have
+     * been added. Use in preference to the copy-on-write {@link Table#addRow(Row)} methods when building a table row by
+     * row.
+     */
+    public static class Builder {
+
+        private List<String> header = new ArrayList<>();
+        private List<Row> rows;
+        private ScalarDictionary dictionary;
+
+        private Builder(final int expectedRows) {
+            Validate.isTrue(expectedRows >= 0, "Expected rows cannot be negative");
+            this.rows = new ArrayList<>(expectedRows);
+        }
+
+        public Builder setHeader(final String[] header) {
+            return setHeader(Arrays.asList(header));
+        }
+
+        public Builder setHeader(final Collection<String> header) {
+            checkNotBuilt();
+            this.header = new ArrayList<>(header);
+            return this;
+        }
+
+        /**
+         * @return <code>true</code> if a header has been set on this builder
+         */
+        public boolean hasHeader() {
+            return CollectionUtils.isNotEmpty(header);
+        }
+
+        /**
+         * Share repeated values within each column of the rows added after this call through a
+         * {@link ScalarDictionary}. Recommended when loading large tables with low cardinality columns.
+         *
+         * @param dictionary the dictionary to intern values with or null to keep each row's values as they are
+         */
+        public Builder setDictionary(final ScalarDictionary dictionary) {
+            checkNotBuilt();
+            this.dictionary = dictionary;
+            return this;
+        }
+
+        public Builder addRow(final Row row) {
+            checkNotBuilt();
+            rows.add(dictionary != null ? dictionary.intern(row) : row);
+            return this;
+        }
+
+        public Builder addRow(final Array row) {
+            return addRow(Row.of(row));
+        }
+
+        public Builder addRow(final Scalar[] row) {
+            return addRow(Row.of(row));
+        }
+
+        public Builder addRow(final String[] row) {
+            if (dictionary != null) {
+                checkNotBuilt();
+                rows.add(Row.of(Array.view(Arrays.asList(dictionary.intern(row)))));
+                return this;
+            }
+            return addRow(Row.of(row));
+        }
+
+        public Builder addRow(final Object[] row) {
+            return addRow(Row.of(row));
+        }
+
+        public Builder addRows(final Collection<Row> rows) {
+            if (dictionary != null) {
+                ensureCapacity(rows.size());
+                for (Row row : rows) {
+                    addRow(row);
+                }
+                return this;
+            }
+            checkNotBuilt();
+            this.rows.addAll(rows);
+            return this;
+        }
+
+        public Builder addRows(final Scalar[][] rows) {
+            ensureCapacity(rows.length);
+            for (Scalar[] row : rows) {
+                addRow(row);
+            }
+            return this;
+        }
+
+        public Builder addRows(final Object[][] rows) {
+            ensureCapacity(rows.length);
+            for (Object[] row : rows) {
+                addRow(row);
+            }
+            return this;
+        }
+
+        public Builder addRows(final String[][] rows) {
+            ensureCapacity(rows.length);
+            for (String[] row : rows) {
+                addRow(row);
+            }
+            return this;
+        }
+
+        /**
+         * @return the number of rows added to the builder so far
+         */
+        public int getNumOfRows() {
+            checkNotBuilt();
+            return rows.size();
+        }
+
+        /**
+         * Create the {@link Table}. The builder hands its rows to the table without copying them and so cannot be used
+         * again once this method has been called.
+         */
+        public Table build() {
+            checkNotBuilt();
+            Table table = new Table(header, rows);
+            this.rows = null;
+            return table;
+        }
+
+        private void ensureCapacity(final int additionalRows) {
+            checkNotBuilt();
+            ((ArrayList<Row>) rows).ensureCapacity(rows.size() + additionalRows);
+        }
+
+        private void checkNotBuilt() {
+            if (rows == null) {
+                throw new IllegalStateException("Table has already been built by this builder");
+            }
+        }
+    }
+
     /**
      * Constant returned when a header is not found
      */
@@ -90,6 +237,21 @@ public class Table {
         return reader.read(is, hasHeader);
     }
 
+    /**
+     * Static factory method to create a {@link Builder} for a new table
+     */
+    public static Builder builder() {
+        return new Builder(10);
+    }
+
+    /**
+     * Static factory method to create a {@link Builder} for a new table pre-sized for the expected number of rows
+     * @param expectedRows the number of rows the table is expected to hold
+     */
+    public static Builder builder(final int expectedRows) {
+        return new Builder(expectedRows);
+    }
+
     /**
      * Static factory method to create an empty table
      */
@@ -166,8 +328,10 @@ public class Table {
 
     private final List<Row> rows;
     private final List<String> header;
+    private final ConcurrentMap<Integer, TableIndex> indexes = new ConcurrentHashMap<>();
+    private volatile Map<String, Integer> headerIndexes;
 
-    private Table(final List<String> header, final List<Row> rows) {
+    Table(final List<String> header, final List<Row> rows) {
         Validate.notNull(header, "Header cannot be null");
         Validate.notNull(rows, "Rows cannot be null");
         this.header = header;
@@ -178,6 +342,14 @@ public class Table {
         this(new ArrayList<String>(), new ArrayList<Row>());
     }
 
+    /**
+     * Constructor for alternative table implementations which hold their rows in their own storage and override the
+     * row and cell accessors of this class
+     */
+    protected Table(final List<String> header) {
+        this(header, Collections.<Row> emptyList());
+    }
+
     /**
      * @return If this table has a header or not
      */
@@ -193,7 +365,15 @@ public class Table {
      * @return The index of the header or -1 if the header is not found or the table has no header at all
      */
     public int getHeaderIndex(final String name) {
-        return header.indexOf(name);
+        Map<String, Integer> headerIndexes = this.headerIndexes;
+        if (headerIndexes == null) {
+            headerIndexes = new HashMap<>();
+            for (int i = 0; i < header.size(); ++i) {
+                headerIndexes.putIfAbsent(header.get(i), i);
+            }
+            this.headerIndexes = headerIndexes;
+        }
+        return headerIndexes.getOrDefault(name, HEADER_NOT_FOUND);
     }
 
     /**
@@ -223,6 +403,18 @@ public class Table {
         return (rowId >= 0 && rowId < rows.size()) ? rows.get(rowId).getValue(columnId) : null;
     }
 
+    /**
+     * @param rowId The row id of the cell to check.
+     * @param columnId The column id of the cell to check.
+     *
+     * @return <code>true</code> if the table contains the cell and it is neither null nor blank, <code>false</code> if
+     *         it isn't
+     */
+    public boolean hasValue(final int rowId, final int columnId) {
+        String value = getValueAsString(rowId, columnId);
+        return value != null && !value.isEmpty();
+    }
+
     /**
      * @param rowId The row id of the cell value to get.
      * @param columnId The column id of the cell value to get.
@@ -356,6 +548,82 @@ public class Table {
         return rows.stream();
     }
 
+    /**
+     * Return the data rows as a parallel stream of rows. The stream is sized so it splits evenly by row id.
+     * @return a parallel {@link Stream} of {@link Row}
+     */
+    public Stream<Row> parallelRows() {
+        return rows().parallel();
+    }
+
+    /**
+     * Return the values of a column as doubles without boxing them. Cells which are null or blank are skipped and
+     * other values are converted as by {@link Scalar#getValueAsDouble()}. The stream splits evenly by row id so
+     * aggregates such as {@link DoubleStream#sum()} can be computed in parallel.
+     *
+     * @param columnId The column id of the column to stream
+     */
+    public DoubleStream doubles(final int columnId) {
+        return rowIdsWithValues(columnId).mapToDouble(rowId -> getValueAsDouble(rowId, columnId));
+    }
+
+    /**
+     * Return the values of a column as doubles without boxing them. See {@link #doubles(int)}.
+     *
+     * @param header The header of the column to stream
+     */
+    public DoubleStream doubles(final String header) {
+        return doubles(getColumnIdByHeader(header));
+    }
+
+    /**
+     * Return the values of a column as ints. Cells which are null or blank are skipped and other values are converted
+     * as by {@link Scalar#getValueAsInteger()}. The stream splits evenly by row id so it can be made parallel.
+     *
+     * @param columnId The column id of the column to stream
+     */
+    public IntStream ints(final int columnId) {
+        return rowIdsWithValues(columnId).map(rowId -> getValueAsInteger(rowId, columnId));
+    }
+
+    /**
+     * Return the values of a column as ints. See {@link #ints(int)}.
+     *
+     * @param header The header of the column to stream
+     */
+    public IntStream ints(final String header) {
+        return ints(getColumnIdByHeader(header));
+    }
+
+    /**
+     * Return the values of a column as longs. Cells which are null or blank are skipped and other values are converted
+     * as by {@link Scalar#getValueAsLong()}. The stream splits evenly by row id so it can be made parallel.
+     *
+     * @param columnId The column id of the column to stream
+     */
+    public LongStream longs(final int columnId) {
+        return rowIdsWithValues(columnId).mapToLong(rowId -> getValueAsLong(rowId, columnId));
+    }
+
+    /**
+     * Return the values of a column as longs. See {@link #longs(int)}.
+     *
+     * @param header The header of the column to stream
+     */
+    public LongStream longs(final String header) {
+        return longs(getColumnIdByHeader(header));
+    }
+
+    private IntStream rowIdsWithValues(final int columnId) {
+        return IntStream.range(0, getNumOfRows()).filter(rowId -> hasValue(rowId, columnId));
+    }
+
+    private int getColumnIdByHeader(final String header) {
+        int columnId = getHeaderIndex(header);
+        Validate.isTrue(columnId != HEADER_NOT_FOUND, "No column with header '" + header + "' found");
+        return columnId;
+    }
+
     /**
      * Write the contents of the table to the specified stream using a new line beween rows and a comma between columns
      */
@@ -372,10 +640,53 @@ public class Table {
         writer.write(this, out);
     }
 
+    /**
+     * Return a new table comprising the rows at the supplied ids, in the order supplied, and optionally only some of
+     * the columns. Rows are shared with this table when every column is kept.
+     *
+     * @param rowIds The ids of the rows to keep
+     * @param columnIds The ids of the columns to keep, in the order they should appear, or null to keep every column
+     */
+    public Table select(final int[] rowIds, final int[] columnIds) {
+        List<String> selectedHeader = columnIds != null ? selectHeader(columnIds) : header;
+        List<Row> selected = new ArrayList<>(rowIds.length);
+        for (int rowId : rowIds) {
+            Row row = rows.get(rowId);
+            if (columnIds == null) {
+                selected.add(row);
+            } else {
+                Scalar[] values = new Scalar[columnIds.length];
+                for (int i = 0; i < columnIds.length; ++i) {
+                    Scalar value = row.getValue(columnIds[i]);
+                    values[i] = value != null ? value : new Scalar("");
+                }
+                selected.add(Row.of(Array.of(values), selectedHeader));
+            }
+        }
+        return new Table(selectedHeader, selected);
+    }
+
+    /**
+     * Return the header of the supplied columns, or an empty header if this table has no header
+     */
+    protected List<String> selectHeader(final int[] columnIds) {
+        if (!hasHeader()) {
+            return new ArrayList<>();
+        }
+        List<String> selected = new ArrayList<>(columnIds.length);
+        for (int columnId : columnIds) {
+            String name = getHeaderAsString(columnId);
+            selected.add(name != null ? name : "");
+        }
+        return selected;
+    }
+
+    /**
+     * Return a copy of this table sorted by the values in a column, ascending. See {@link TableSort} to sort by more
+     * than one column or in descending order.
+     */
     public Table sort(final int columnIdToSortBy) {
-        List<Row> sortable = new ArrayList<>(this.rows);
-        Collections.sort(sortable, new CompareRowsAtColumnId(columnIdToSortBy));
-        return new Table(header, sortable);
+        return as(TableSort.by(columnIdToSortBy));
     }
 
     public Table addHeader(final Collection<String> header) {
@@ -387,13 +698,14 @@ public class Table {
     }
 
     public Table addRow(final Row row) {
-        List<Row> newRows = new ArrayList<>(this.rows);
+        List<Row> newRows = new ArrayList<>(this.rows.size() + 1);
+        newRows.addAll(this.rows);
         newRows.add(row);
         return new Table(header, newRows);
     }
 
     public Table addRow(final Collection<String> row) {
-        return new Table(header, rows);
+        return addRow(row.toArray(new String[row.size()]));
     }
 
     public Table addRow(final Array data) {
@@ -413,7 +725,8 @@ public class Table {
     }
 
     public Table addRows(final List<Row> rows) {
-        List<Row> newRows = new ArrayList<>(this.rows);
+        List<Row> newRows = new ArrayList<>(this.rows.size() + rows.size());
+        newRows.addAll(this.rows);
         newRows.addAll(rows);
         return new Table(header, newRows);
     }
@@ -430,6 +743,42 @@ public class Table {
         return addRows(Arrays.stream(row).map(Array::of).map(Row::of).collect(toList()));
     }
 
+    /**
+     * Find the rows which hold a value in a column. The first lookup on a column builds a {@link TableIndex} over it
+     * which is kept with the table and serves every later lookup on that column.
+     *
+     * @param columnId The id of the column to search
+     * @param value The value to find
+     *
+     * @return The matching rows in table order or an empty list if no row holds the value
+     */
+    public List<Row> findRows(final int columnId, final String value) {
+        return indexes.computeIfAbsent(columnId, id -> TableIndex.of(this, id)).findRows(value);
+    }
+
+    /**
+     * Find the rows which hold a value in the column with the supplied header. See {@link #findRows(int, String)}
+     *
+     * @param name The header of the column to search
+     * @param value The value to find
+     *
+     * @return The matching rows in table order or an empty list if no row holds the value
+     */
+    public List<Row> findRows(final String name, final String value) {
+        int columnId = getHeaderIndex(name);
+        Validate.isTrue(columnId != HEADER_NOT_FOUND, "No column with header '" + name + "' found");
+        return findRows(columnId, value);
+    }
+
+    /**
+     * Build a {@link TableIndex} over one or more columns of this table for repeated lookups by a compound key
+     *
+     * @param columnIds The ids of the columns which together make up the key
+     */
+    public TableIndex index(final int... columnIds) {
+        return TableIndex.of(this, columnIds);
+    }
+
     public boolean hasColumn(final int index) {
         return getNumOfColumns() > index;
     }
@@ -442,27 +791,30 @@ public class Table {
         return as(new TableToMapTransform(keyIndex, valueIndex));
     }
 
-    @Override
-    public String toString() {
-        return "Table [" + getNumOfRows() + "x" + getNumOfColumns() + "]";
+    /**
+     * Join this table to another table where the values in the key columns are equal. See {@link TableJoin}
+     */
+    public Table innerJoin(final Table right, final int leftColumnId, final int rightColumnId) {
+        return as(TableJoin.inner(right).on(leftColumnId, rightColumnId));
     }
 
     /**
-     * @author Stewart Bissett
+     * Join this table to another table where the values in the key columns are equal, keeping the rows of this table
+     * which have no match. See {@link TableJoin}
      */
-    private final class CompareRowsAtColumnId implements Comparator<Row> {
-
-        private final int columnIdToSortBy;
+    public Table leftJoin(final Table right, final int leftColumnId, final int rightColumnId) {
+        return as(TableJoin.left(right).on(leftColumnId, rightColumnId));
+    }
 
-        private CompareRowsAtColumnId(final int columnIdToSortBy) {
-            this.columnIdToSortBy = columnIdToSortBy;
-        }
+    /**
+     * Return the rows of this table which have no row with an equal key in another table. See {@link TableJoin}
+     */
+    public Table antiJoin(final Table right, final int leftColumnId, final int rightColumnId) {
+        return as(TableJoin.anti(right).on(leftColumnId, rightColumnId));
+    }
 
-        @Override
-        public int compare(final Row o1, final Row o2) {
-            Scalar valueA = o1.getValue(columnIdToSortBy);
-            Scalar valueB = o2.getValue(columnIdToSortBy);
-            return valueA != null ? valueA.compareTo(valueB) : valueB != null ? -1 : 0;
-        }
+    @Override
+    public String toString() {
+        return "Table [" + getNumOfRows() + "x" + getNumOfColumns() + "]";
     }
 }
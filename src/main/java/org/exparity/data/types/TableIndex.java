@@ -0,0 +1,162 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A hash index over the values of one or more columns of a {@link Table}. The index is built in a single pass over
+ * the table and maps each distinct key to the ids of the rows which hold it, so lookups do not scan the table. A key
+ * may match many rows. Values are compared by their string value, as they are by {@link Scalar#equals(Object)}.
+ *
+ * <pre>
+ * TableIndex index = TableIndex.of(accounts, 0, 2);
+ * List&lt;Row&gt; matches = index.findRows("ACC-001", "GBP");
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    /**
+     * Build an index over the supplied columns of a table
+     * @param table the table to index
+     * @param columnIds the ids of the columns which together make up the key
+     * @return a {@link TableIndex}
+     */
+    public static TableIndex of(final Table table, final int... columnIds) {
+        Validate.notNull(table, "Table cannot be null");
+        Validate.isTrue(columnIds.length > 0, "At least one column must be indexed");
+        return new TableIndex(table, columnIds.clone());
+    }
+
+    private final Table table;
+    private final int[] columnIds;
+    private final Map<Object, RowIds> index;
+
+    private TableIndex(final Table table, final int[] columnIds) {
+        this.table = table;
+        this.columnIds = columnIds;
+        int numOfRows = table.getNumOfRows();
+        this.index = new HashMap<>(Math.max(16, (int) (numOfRows / 0.75f) + 1));
+        for (int rowId = 0; rowId < numOfRows; ++rowId) {
+            Object key = keyOf(rowId);
+            RowIds rowIds = index.get(key);
+            if (rowIds == null) {
+                index.put(key, new RowIds(rowId));
+            } else {
+                rowIds.add(rowId);
+            }
+        }
+    }
+
+    /**
+     * @return the ids of the columns which make up the key of this index
+     */
+    public int[] getColumnIds() {
+        return columnIds.clone();
+    }
+
+    /**
+     * @return the number of distinct keys within the index
+     */
+    public int getNumOfKeys() {
+        return index.size();
+    }
+
+    /**
+     * @return <code>true</code> if at least one row holds the key, <code>false</code> if none do
+     */
+    public boolean contains(final String... key) {
+        return index.containsKey(asKey(key));
+    }
+
+    /**
+     * Return the ids of the rows which hold the key, in the order the rows appear in the table
+     * @param key one value for each indexed column
+     * @return the matching row ids or an empty array if no row holds the key
+     */
+    public int[] getRowIds(final String... key) {
+        RowIds rowIds = index.get(asKey(key));
+        return rowIds != null ? Arrays.copyOf(rowIds.ids, rowIds.size) : NO_ROWS;
+    }
+
+    /**
+     * Return the rows which hold the key, in the order the rows appear in the table
+     * @param key one value for each indexed column
+     * @return the matching rows or an empty list if no row holds the key
+     */
+    public List<Row> findRows(final String... key) {
+        RowIds rowIds = index.get(asKey(key));
+        if (rowIds == null) {
+            return Collections.emptyList();
+        }
+        List<Row> rows = new ArrayList<>(rowIds.size);
+        for (int i = 0; i < rowIds.size; ++i) {
+            rows.add(table.getRow(rowIds.ids[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * Return the first row which holds the key
+     * @param key one value for each indexed column
+     * @return the first matching row or null if no row holds the key
+     */
+    public Row findRow(final String... key) {
+        RowIds rowIds = index.get(asKey(key));
+        return rowIds != null ? table.getRow(rowIds.ids[0]) : null;
+    }
+
+    private Object keyOf(final int rowId) {
+        if (columnIds.length == 1) {
+            return table.getValueAsString(rowId, columnIds[0]);
+        }
+        String[] key = new String[columnIds.length];
+        for (int i = 0; i < columnIds.length; ++i) {
+            key[i] = table.getValueAsString(rowId, columnIds[i]);
+        }
+        return Arrays.asList(key);
+    }
+
+    private Object asKey(final String[] key) {
+        Validate.isTrue(key.length == columnIds.length, "Expected " + columnIds.length + " key values but found "
+                + key.length);
+        return key.length == 1 ? key[0] : Arrays.asList(key);
+    }
+
+    /**
+     * The ids of the rows which hold a single key. Most keys of reference data are unique so the array starts with
+     * room for one row and grows only when a key is repeated.
+     */
+    private static final class RowIds {
+
+        private int[] ids;
+        private int size;
+
+        private RowIds(final int rowId) {
+            this.ids = new int[] {
+                    rowId
+            };
+            this.size = 1;
+        }
+
+        private void add(final int rowId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = rowId;
+        }
+    }
+}
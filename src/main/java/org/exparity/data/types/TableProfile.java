@@ -0,0 +1,257 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Statistics for each column of a table gathered in a single pass over its rows: the number of null and blank cells,
+ * the range of numeric values, an estimate of the number of distinct values, the {@link ColumnType} a
+ * {@link ColumnarTable} would infer for the column and the average width of its values. Distinct values are counted
+ * with a HyperLogLog sketch so profiling uses a fixed amount of memory per column however many rows are read, and a
+ * stream of rows, for example from {@link org.exparity.data.CSV#stream(java.io.InputStream, boolean)}, can be
+ * profiled without first being loaded into a table.
+ *
+ * <pre>
+ * TableProfile profile = TableProfile.of(trades);
+ * long currencies = profile.getColumn("Currency").getDistinctCount();
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableProfile {
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    /**
+     * Statistics for a single column
+     */
+    public static class ColumnProfile {
+
+        private final String name;
+        private final HyperLogLog distinct = new HyperLogLog();
+        private long numOfValues, numOfBlanks, totalWidth;
+        private double min = Double.NaN, max = Double.NaN;
+        private ColumnType type;
+        private boolean inexactLong;
+        private long numOfRows;
+
+        private ColumnProfile(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the header of the column or null if the table has no header for the column
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of cells in the column which are missing, including the cells of rows too short to
+         *         reach the column
+         */
+        public long getNullCount() {
+            return numOfRows - numOfValues - numOfBlanks;
+        }
+
+        /**
+         * @return the number of cells in the column which are blank
+         */
+        public long getBlankCount() {
+            return numOfBlanks;
+        }
+
+        /**
+         * @return the number of cells in the column which are neither null nor blank
+         */
+        public long getValueCount() {
+            return numOfValues;
+        }
+
+        /**
+         * @return the smallest value of a numeric column or {@link Double#NaN} if the column is not numeric or has no
+         *         values
+         */
+        public double getMin() {
+            return isNumeric() ? min : Double.NaN;
+        }
+
+        /**
+         * @return the largest value of a numeric column or {@link Double#NaN} if the column is not numeric or has no
+         *         values
+         */
+        public double getMax() {
+            return isNumeric() ? max : Double.NaN;
+        }
+
+        /**
+         * @return an estimate of the number of distinct values in the column, excluding null and blank cells
+         */
+        public long getDistinctCount() {
+            return numOfValues == 0 ? 0 : Math.min(distinct.estimate(), numOfValues);
+        }
+
+        /**
+         * @return the type a {@link ColumnarTable} would infer for the column
+         */
+        public ColumnType getType() {
+            if (type == null) {
+                return ColumnType.STRING;
+            }
+            return type == ColumnType.DOUBLE && inexactLong ? ColumnType.STRING : type;
+        }
+
+        /**
+         * @return the average number of characters in the values of the column, excluding null and blank cells
+         */
+        public double getAverageWidth() {
+            return numOfValues == 0 ? 0 : (double) totalWidth / numOfValues;
+        }
+
+        private boolean isNumeric() {
+            ColumnType type = getType();
+            return type == ColumnType.INTEGER || type == ColumnType.LONG || type == ColumnType.DOUBLE;
+        }
+
+        private void add(final String value) {
+            if (value == null) {
+                return;
+            }
+            if (value.isEmpty()) {
+                ++numOfBlanks;
+                return;
+            }
+            ++numOfValues;
+            totalWidth += value.length();
+            distinct.add(value);
+            if (type == ColumnType.STRING) {
+                return;
+            }
+            ColumnType cellType = TypedColumn.classify(value);
+            type = cellType.widen(type);
+            if (cellType == ColumnType.INTEGER || cellType == ColumnType.LONG) {
+                long number = Long.parseLong(value);
+                inexactLong |= number > MAX_EXACT_DOUBLE || number < -MAX_EXACT_DOUBLE;
+                record(number);
+            } else
+                if (cellType == ColumnType.DOUBLE) {
+                    record(Double.parseDouble(value));
+                }
+        }
+
+        private void record(final double value) {
+            min = Double.isNaN(min) ? value : Math.min(min, value);
+            max = Double.isNaN(max) ? value : Math.max(max, value);
+        }
+    }
+
+    /**
+     * Profile every row of a table
+     */
+    public static TableProfile of(final Table table) {
+        Validate.notNull(table, "Table cannot be null");
+        return of(table.rowIterator().iterator(), table.getHeader());
+    }
+
+    /**
+     * Profile a stream of rows, taking the header from the first row. The stream is consumed but not closed.
+     */
+    public static TableProfile of(final Stream<Row> rows) {
+        Validate.notNull(rows, "Rows cannot be null");
+        return of(rows.iterator(), null);
+    }
+
+    private static TableProfile of(final Iterator<Row> rows, final List<String> header) {
+        TableProfile profile = new TableProfile(header);
+        while (rows.hasNext()) {
+            profile.add(rows.next());
+        }
+        profile.finish();
+        return profile;
+    }
+
+    private List<String> header;
+    private final List<ColumnProfile> columns = new ArrayList<>();
+    private long numOfRows;
+
+    private TableProfile(final List<String> header) {
+        this.header = header;
+    }
+
+    /**
+     * @return the number of rows profiled
+     */
+    public long getNumOfRows() {
+        return numOfRows;
+    }
+
+    /**
+     * @return the number of columns profiled, which is the width of the widest row or the header if wider
+     */
+    public int getNumOfColumns() {
+        return columns.size();
+    }
+
+    /**
+     * @return the profile of every column in column order
+     */
+    public List<ColumnProfile> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * @return the profile of the column with the supplied id or null if no column has the id
+     */
+    public ColumnProfile getColumn(final int columnId) {
+        return columnId >= 0 && columnId < columns.size() ? columns.get(columnId) : null;
+    }
+
+    /**
+     * @return the profile of the column with the supplied header or null if no column has the header
+     */
+    public ColumnProfile getColumn(final String name) {
+        for (ColumnProfile column : columns) {
+            if (name.equals(column.name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private void add(final Row row) {
+        if (header == null) {
+            header = row.getHeader();
+        }
+        int width = Math.max(row.getNumOfValues(), header.size());
+        while (columns.size() < width) {
+            int columnId = columns.size();
+            columns.add(new ColumnProfile(columnId < header.size() ? header.get(columnId) : null));
+        }
+        for (int i = 0; i < row.getNumOfValues(); ++i) {
+            Scalar value = row.getValue(i);
+            columns.get(i).add(value != null ? value.getValueAsString() : null);
+        }
+        ++numOfRows;
+    }
+
+    private void finish() {
+        if (header == null) {
+            header = Collections.emptyList();
+        }
+        while (columns.size() < header.size()) {
+            columns.add(new ColumnProfile(header.get(columns.size())));
+        }
+        for (ColumnProfile column : columns) {
+            column.numOfRows = numOfRows;
+        }
+    }
+}
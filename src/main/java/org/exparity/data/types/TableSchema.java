@@ -0,0 +1,191 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+
+/**
+ * Declares the type, date pattern and nullability of the columns of a table before it is loaded. A schema is applied
+ * once as each row is loaded into a {@link ColumnarTable} so the declared columns are held pre-converted and are never
+ * re-parsed when they are read. Columns are identified either by their header name or by their index.
+ *
+ * <pre>
+ * TableSchema schema = TableSchema.newSchema()
+ *         .addColumn("Account", ColumnType.LONG)
+ *         .addDateColumn("Trade Date", "dd/MM/yyyy", false)
+ *         .addColumn("Comment", ColumnType.STRING, true);
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableSchema {
+
+    /**
+     * The declaration of a single column within a {@link TableSchema}
+     */
+    public static final class ColumnDefinition {
+
+        private final String name;
+        private final int columnId;
+        private final ColumnType type;
+        private final String pattern;
+        private final DateTimeFormatter format;
+        private final boolean nullable;
+
+        private ColumnDefinition(final String name,
+                final int columnId,
+                final ColumnType type,
+                final String pattern,
+                final boolean nullable) {
+            this.name = name;
+            this.columnId = columnId;
+            this.type = type;
+            this.pattern = pattern;
+            this.format = pattern != null ? DateTimeFormatter.ofPattern(pattern) : null;
+            this.nullable = nullable;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public DateTimeFormatter getFormat() {
+            return format;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        @Override
+        public String toString() {
+            return "column " + (name != null ? "'" + name + "'" : String.valueOf(columnId)) + " of type " + type;
+        }
+    }
+
+    /**
+     * Static factory method to create an empty schema
+     */
+    public static TableSchema newSchema() {
+        return new TableSchema();
+    }
+
+    private final List<ColumnDefinition> columns = new ArrayList<>();
+
+    /**
+     * Declare a column which must have a value in every row
+     * @param name the header name of the column
+     * @param type the type to convert the column's values to
+     */
+    public TableSchema addColumn(final String name, final ColumnType type) {
+        return addColumn(name, type, false);
+    }
+
+    /**
+     * Declare a column
+     * @param name the header name of the column
+     * @param type the type to convert the column's values to
+     * @param nullable <code>true</code> if blank or missing values are allowed and should be held as null
+     */
+    public TableSchema addColumn(final String name, final ColumnType type, final boolean nullable) {
+        Validate.notNull(name, "Name cannot be null");
+        return add(new ColumnDefinition(name, -1, checkType(type), null, nullable));
+    }
+
+    /**
+     * Declare a column
+     * @param columnId the index of the column
+     * @param type the type to convert the column's values to
+     * @param nullable <code>true</code> if blank or missing values are allowed and should be held as null
+     */
+    public TableSchema addColumn(final int columnId, final ColumnType type, final boolean nullable) {
+        Validate.isTrue(columnId >= 0, "Column id cannot be negative");
+        return add(new ColumnDefinition(null, columnId, checkType(type), null, nullable));
+    }
+
+    /**
+     * Declare a column of dates
+     * @param name the header name of the column
+     * @param pattern the pattern of the dates in the column, as understood by {@link DateTimeFormatter#ofPattern}
+     * @param nullable <code>true</code> if blank or missing values are allowed and should be held as null
+     */
+    public TableSchema addDateColumn(final String name, final String pattern, final boolean nullable) {
+        Validate.notNull(name, "Name cannot be null");
+        return add(new ColumnDefinition(name, -1, ColumnType.DATE, checkPattern(pattern), nullable));
+    }
+
+    /**
+     * Declare a column of dates
+     * @param columnId the index of the column
+     * @param pattern the pattern of the dates in the column, as understood by {@link DateTimeFormatter#ofPattern}
+     * @param nullable <code>true</code> if blank or missing values are allowed and should be held as null
+     */
+    public TableSchema addDateColumn(final int columnId, final String pattern, final boolean nullable) {
+        Validate.isTrue(columnId >= 0, "Column id cannot be negative");
+        return add(new ColumnDefinition(null, columnId, ColumnType.DATE, checkPattern(pattern), nullable));
+    }
+
+    /**
+     * @return the declared columns in the order they were added
+     */
+    public List<ColumnDefinition> getColumns() {
+        return new ArrayList<>(columns);
+    }
+
+    /**
+     * Resolve the declared columns against a header
+     *
+     * @return the declared columns keyed by column index
+     * @throws BadFormatException if a column declared by name is not in the header
+     */
+    Map<Integer, ColumnDefinition> resolve(final List<String> header) {
+        Map<Integer, ColumnDefinition> resolved = new HashMap<>();
+        for (ColumnDefinition column : columns) {
+            int columnId = column.columnId;
+            if (column.name != null) {
+                columnId = header.indexOf(column.name);
+                if (columnId == Table.HEADER_NOT_FOUND) {
+                    throw new BadFormatException("Column '" + column.name + "' declared in schema not found in header "
+                            + header);
+                }
+            }
+            if (resolved.put(columnId, column) != null) {
+                throw new IllegalArgumentException("Column " + columnId + " declared more than once in schema");
+            }
+        }
+        return resolved;
+    }
+
+    private TableSchema add(final ColumnDefinition column) {
+        columns.add(column);
+        return this;
+    }
+
+    private static String checkPattern(final String pattern) {
+        DateTimeFormatter.ofPattern(pattern);
+        return pattern;
+    }
+
+    private static ColumnType checkType(final ColumnType type) {
+        Validate.notNull(type, "Type cannot be null");
+        Validate.isTrue(type != ColumnType.DATE, "Declare date columns with addDateColumn");
+        return type;
+    }
+}
@@ -0,0 +1,957 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for a single column of a {@link ColumnarTable}. Values are held in a primitive array appropriate to the
+ * {@link ColumnType} of the column with missing cells and blank cells tracked in bitsets. Conversions which are not
+ * native to the column's type follow the same rules as {@link Scalar}.
+ *
+ * @author Stewart Bissett
+ */
+abstract class TypedColumn {
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    protected final int size;
+    protected final BitSet nulls;
+    protected final BitSet blanks;
+
+    protected TypedColumn(final int size, final BitSet nulls, final BitSet blanks) {
+        this.size = size;
+        this.nulls = nulls;
+        this.blanks = blanks;
+    }
+
+    /**
+     * @return the storage type of this column
+     */
+    abstract ColumnType getType();
+
+    /**
+     * @return the text of a cell which is neither null nor blank
+     */
+    protected abstract String text(final int row);
+
+    /**
+     * @return a new column comprising the rows at the supplied indexes, in the order supplied
+     */
+    abstract TypedColumn gather(final int[] rowIds);
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the pattern of a date column or null for a column of any other type
+     */
+    String getPattern() {
+        return null;
+    }
+
+    boolean isNull(final int row) {
+        return nulls.get(row);
+    }
+
+    boolean isBlank(final int row) {
+        return blanks.get(row);
+    }
+
+    int nullCount() {
+        return nulls.cardinality();
+    }
+
+    int blankCount() {
+        return blanks.cardinality();
+    }
+
+    String getString(final int row) {
+        return isNull(row) ? null : isBlank(row) ? "" : text(row);
+    }
+
+    Scalar getScalar(final int row) {
+        return isNull(row) ? null : isBlank(row) ? new Scalar("") : scalar(row);
+    }
+
+    int getInt(final int row) {
+        return getScalar(row).getValueAsInteger();
+    }
+
+    long getLong(final int row) {
+        return getScalar(row).getValueAsLong();
+    }
+
+    double getDouble(final int row) {
+        return getScalar(row).getValueAsDouble();
+    }
+
+    boolean getBoolean(final int row) {
+        return getScalar(row).getValueAsBoolean();
+    }
+
+    LocalDate getDate(final int row, final DateTimeFormatter format) {
+        return LocalDate.parse(getString(row), format);
+    }
+
+    protected Scalar scalar(final int row) {
+        return new Scalar(text(row));
+    }
+
+    protected boolean isValue(final int row) {
+        return !isNull(row) && !isBlank(row);
+    }
+
+    /**
+     * Encode this column as a block of the {@link BinaryTableFormat}. The block holds the null and blank bitsets
+     * followed by the values in the layout of the column's type, all little-endian.
+     */
+    abstract ByteBuffer encode();
+
+    /**
+     * @return the number of distinct values in a column of text or -1 for a column of any other type
+     */
+    int distinctCount() {
+        return -1;
+    }
+
+    /**
+     * Decode a column from a block written by {@link #encode()}
+     *
+     * @param pattern the pattern of a date column, or null for any other type
+     */
+    static TypedColumn decode(final ColumnType type, final int size, final String pattern, final ByteBuffer block) {
+        block.order(ByteOrder.LITTLE_ENDIAN);
+        BitSet nulls = getBits(block), blanks = getBits(block);
+        switch (type) {
+            case BOOLEAN:
+                return new BooleanColumn(size, nulls, blanks, getBits(block));
+            case INTEGER:
+                return new IntColumn(size, nulls, blanks, getInts(block, size));
+            case LONG:
+                long[] longs = new long[size];
+                block.asLongBuffer().get(longs);
+                block.position(block.position() + 8 * size);
+                return new LongColumn(size, nulls, blanks, longs);
+            case DOUBLE:
+                double[] doubles = new double[size];
+                block.asDoubleBuffer().get(doubles);
+                block.position(block.position() + 8 * size);
+                return new DoubleColumn(size, nulls, blanks, doubles, getBits(block));
+            case DATE:
+                return new DateColumn(size,
+                        nulls,
+                        blanks,
+                        getInts(block, size),
+                        pattern,
+                        DateTimeFormatter.ofPattern(pattern));
+            default:
+                String[] dictionary = new String[block.getInt()];
+                for (int i = 0; i < dictionary.length; ++i) {
+                    byte[] bytes = new byte[block.getInt()];
+                    block.get(bytes);
+                    dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                return new StringColumn(size, nulls, blanks, getInts(block, size), dictionary);
+        }
+    }
+
+    /**
+     * Allocate a block for this column with the null and blank bitsets already written and room for the supplied
+     * number of bytes of values
+     */
+    protected ByteBuffer allocate(final int valueBytes) {
+        long[] nullWords = nulls.toLongArray(), blankWords = blanks.toLongArray();
+        ByteBuffer block = ByteBuffer.allocate(8 + 8 * (nullWords.length + blankWords.length) + valueBytes);
+        block.order(ByteOrder.LITTLE_ENDIAN);
+        putWords(block, nullWords);
+        putWords(block, blankWords);
+        return block;
+    }
+
+    protected static int sizeOf(final long[] words) {
+        return 4 + 8 * words.length;
+    }
+
+    protected static void putWords(final ByteBuffer block, final long[] words) {
+        block.putInt(words.length);
+        block.asLongBuffer().put(words);
+        block.position(block.position() + 8 * words.length);
+    }
+
+    protected static void putInts(final ByteBuffer block, final int[] values, final int size) {
+        block.asIntBuffer().put(values, 0, size);
+        block.position(block.position() + 4 * size);
+    }
+
+    private static BitSet getBits(final ByteBuffer block) {
+        long[] words = new long[block.getInt()];
+        block.asLongBuffer().get(words);
+        block.position(block.position() + 8 * words.length);
+        return BitSet.valueOf(words);
+    }
+
+    private static int[] getInts(final ByteBuffer block, final int size) {
+        int[] values = new int[size];
+        block.asIntBuffer().get(values);
+        block.position(block.position() + 4 * size);
+        return values;
+    }
+
+    protected static BitSet gather(final BitSet source, final int[] rowIds) {
+        BitSet gathered = new BitSet(rowIds.length);
+        for (int i = 0; i < rowIds.length; ++i) {
+            if (source.get(rowIds[i])) {
+                gathered.set(i);
+            }
+        }
+        return gathered;
+    }
+
+    /**
+     * Column holding <code>true</code> or <code>false</code> values as bits
+     */
+    private static final class BooleanColumn extends TypedColumn {
+
+        private final BitSet values;
+
+        private BooleanColumn(final int size, final BitSet nulls, final BitSet blanks, final BitSet values) {
+            super(size, nulls, blanks);
+            this.values = values;
+        }
+
+        @Override
+        ColumnType getType() {
+            return ColumnType.BOOLEAN;
+        }
+
+        @Override
+        protected String text(final int row) {
+            return Boolean.toString(values.get(row));
+        }
+
+        @Override
+        protected Scalar scalar(final int row) {
+            return new Scalar(values.get(row));
+        }
+
+        @Override
+        boolean getBoolean(final int row) {
+            return isValue(row) ? values.get(row) : super.getBoolean(row);
+        }
+
+        @Override
+        TypedColumn gather(final int[] rowIds) {
+            return new BooleanColumn(rowIds.length, gather(nulls, rowIds), gather(blanks, rowIds), gather(values, rowIds));
+        }
+
+        @Override
+        ByteBuffer encode() {
+            long[] words = values.toLongArray();
+            ByteBuffer block = allocate(sizeOf(words));
+            putWords(block, words);
+            block.flip();
+            return block;
+        }
+    }
+
+    /**
+     * Column holding integer values in an <code>int[]</code>
+     */
+    private static final class IntColumn extends TypedColumn {
+
+        private final int[] values;
+
+        private IntColumn(final int size, final BitSet nulls, final BitSet blanks, final int[] values) {
+            super(size, nulls, blanks);
+            this.values = values;
+        }
+
+        @Override
+        ColumnType getType() {
+            return ColumnType.INTEGER;
+        }
+
+        @Override
+        protected String text(final int row) {
+            return Integer.toString(values[row]);
+        }
+
+        @Override
+        protected Scalar scalar(final int row) {
+            return new Scalar(values[row]);
+        }
+
+        @Override
+        int getInt(final int row) {
+            return isValue(row) ? values[row] : super.getInt(row);
+        }
+
+        @Override
+        long getLong(final int row) {
+            return isValue(row) ? values[row] : super.getLong(row);
+        }
+
+        @Override
+        double getDouble(final int row) {
+            return isValue(row) ? values[row] : super.getDouble(row);
+        }
+
+        @Override
+        TypedColumn gather(final int[] rowIds) {
+            int[] gathered = new int[rowIds.length];
+            for (int i = 0; i < rowIds.length; ++i) {
+                gathered[i] = values[rowIds[i]];
+            }
+            return new IntColumn(rowIds.length, gather(nulls, rowIds), gather(blanks, rowIds), gathered);
+        }
+
+        @Override
+        ByteBuffer encode() {
+            ByteBuffer block = allocate(4 * size);
+            putInts(block, values, size);
+            block.flip();
+            return block;
+        }
+    }
+
+    /**
+     * Column holding integer values in a <code>long[]</code>
+     */
+    private static final class LongColumn extends TypedColumn {
+
+        private final long[] values;
+
+        private LongColumn(final int size, final BitSet nulls, final BitSet blanks, final long[] values) {
+            super(size, nulls, blanks);
+            this.values = values;
+        }
+
+        @Override
+        ColumnType getType() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        protected String text(final int row) {
+            return Long.toString(values[row]);
+        }
+
+        @Override
+        protected Scalar scalar(final int row) {
+            return new Scalar(values[row]);
+        }
+
+        @Override
+        int getInt(final int row) {
+            return isValue(row) ? (int) values[row] : super.getInt(row);
+        }
+
+        @Override
+        long getLong(final int row) {
+            return isValue(row) ? values[row] : super.getLong(row);
+        }
+
+        @Override
+        double getDouble(final int row) {
+            return isValue(row) ? values[row] : super.getDouble(row);
+        }
+
+        @Override
+        TypedColumn gather(final int[] rowIds) {
+            long[] gathered = new long[rowIds.length];
+            for (int i = 0; i < rowIds.length; ++i) {
+                gathered[i] = values[rowIds[i]];
+            }
+            return new LongColumn(rowIds.length, gather(nulls, rowIds), gather(blanks, rowIds), gathered);
+        }
+
+        @Override
+        ByteBuffer encode() {
+            ByteBuffer block = allocate(8 * size);
+            block.asLongBuffer().put(values, 0, size);
+            block.position(block.position() + 8 * size);
+            block.flip();
+            return block;
+        }
+    }
+
+    /**
+     * Column holding numeric values in a <code>double[]</code>. Values which were loaded from integer text are flagged
+     * so their original text can be reproduced.
+     */
+    private static final class DoubleColumn extends TypedColumn {
+
+        private final double[] values;
+        private final BitSet integral;
+
+        private DoubleColumn(final int size,
+                final BitSet nulls,
+                final BitSet blanks,
+                final double[] values,
+                final BitSet integral) {
+            super(size, nulls, blanks);
+            this.values = values;
+            this.integral = integral;
+        }
+
+        @Override
+        ColumnType getType() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        protected String text(final int row) {
+            return integral.get(row) ? Long.toString((long) values[row]) : Double.toString(values[row]);
+        }
+
+        @Override
+        protected Scalar scalar(final int row) {
+            return integral.get(row) ? new Scalar((long) values[row]) : new Scalar(values[row]);
+        }
+
+        @Override
+        int getInt(final int row) {
+            return isValue(row) ? (int) values[row] : super.getInt(row);
+        }
+
+        @Override
+        long getLong(final int row) {
+            return isValue(row) ? (long) values[row] : super.getLong(row);
+        }
+
+        @Override
+        double getDouble(final int row) {
+            return isValue(row) ? values[row] : super.getDouble(row);
+        }
+
+        @Override
+        TypedColumn gather(final int[] rowIds) {
+            double[] gathered = new double[rowIds.length];
+            for (int i = 0; i < rowIds.length; ++i) {
+                gathered[i] = values[rowIds[i]];
+            }
+            return new DoubleColumn(rowIds.length,
+                    gather(nulls, rowIds),
+                    gather(blanks, rowIds),
+                    gathered,
+                    gather(integral, rowIds));
+        }
+
+        @Override
+        ByteBuffer encode() {
+            long[] words = integral.toLongArray();
+            ByteBuffer block = allocate(8 * size + sizeOf(words));
+            block.asDoubleBuffer().put(values, 0, size);
+            block.position(block.position() + 8 * size);
+            putWords(block, words);
+            block.flip();
+            return block;
+        }
+    }
+
+    /**
+     * Column holding dates as epoch days in an <code>int[]</code>. The text of each value is rendered using the pattern
+     * the column was declared with.
+     */
+    private static final class DateColumn extends TypedColumn {
+
+        private final int[] values;
+        private final String pattern;
+        private final DateTimeFormatter format;
+
+        private DateColumn(final int size,
+                final BitSet nulls,
+                final BitSet blanks,
+                final int[] values,
+                final String pattern,
+                final DateTimeFormatter format) {
+            super(size, nulls, blanks);
+            this.values = values;
+            this.pattern = pattern;
+            this.format = format;
+        }
+
+        @Override
+        ColumnType getType() {
+            return ColumnType.DATE;
+        }
+
+        @Override
+        String getPattern() {
+            return pattern;
+        }
+
+        @Override
+        protected String text(final int row) {
+            return format.format(LocalDate.ofEpochDay(values[row]));
+        }
+
+        @Override
+        LocalDate getDate(final int row, final DateTimeFormatter format) {
+            return isValue(row) ? LocalDate.ofEpochDay(values[row]) : super.getDate(row, format);
+        }
+
+        @Override
+        TypedColumn gather(final int[] rowIds) {
+            int[] gathered = new int[rowIds.length];
+            for (int i = 0; i < rowIds.length; ++i) {
+                gathered[i] = values[rowIds[i]];
+            }
+            return new DateColumn(rowIds.length,
+                    gather(nulls, rowIds),
+                    gather(blanks, rowIds),
+                    gathered,
+                    pattern,
+                    format);
+        }
+
+        @Override
+        ByteBuffer encode() {
+            ByteBuffer block = allocate(4 * size);
+            putInts(block, values, size);
+            block.flip();
+            return block;
+        }
+    }
+
+    /**
+     * Column holding text as codes into a dictionary of the distinct values in the column
+     */
+    private static final class StringColumn extends TypedColumn {
+
+        private final int[] codes;
+        private final String[] dictionary;
+
+        private StringColumn(final int size,
+                final BitSet nulls,
+                final BitSet blanks,
+                final int[] codes,
+                final String[] dictionary) {
+            super(size, nulls, blanks);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        ColumnType getType() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        protected String text(final int row) {
+            return dictionary[codes[row]];
+        }
+
+        @Override
+        TypedColumn gather(final int[] rowIds) {
+            int[] gathered = new int[rowIds.length];
+            for (int i = 0; i < rowIds.length; ++i) {
+                gathered[i] = codes[rowIds[i]];
+            }
+            return new StringColumn(rowIds.length, gather(nulls, rowIds), gather(blanks, rowIds), gathered, dictionary);
+        }
+
+        @Override
+        int distinctCount() {
+            BitSet used = new BitSet(dictionary.length);
+            for (int row = 0; row < size; ++row) {
+                if (isValue(row)) {
+                    used.set(codes[row]);
+                }
+            }
+            return used.cardinality();
+        }
+
+        @Override
+        ByteBuffer encode() {
+            byte[][] encoded = new byte[dictionary.length][];
+            int valueBytes = 4 + 4 * size;
+            for (int i = 0; i < dictionary.length; ++i) {
+                encoded[i] = dictionary[i].getBytes(StandardCharsets.UTF_8);
+                valueBytes += 4 + encoded[i].length;
+            }
+            ByteBuffer block = allocate(valueBytes);
+            block.putInt(encoded.length);
+            for (byte[] value : encoded) {
+                block.putInt(value.length);
+                block.put(value);
+            }
+            putInts(block, codes, size);
+            block.flip();
+            return block;
+        }
+    }
+
+    /**
+     * Accumulates the text values of a column in a single pass. Unless the column is declared with a fixed type the
+     * accumulator infers the narrowest {@link ColumnType} which holds every value without losing its original text and
+     * widens the storage as required. A column with a fixed type converts each value as it is appended and rejects
+     * values which cannot be converted.
+     */
+    static final class Accumulator {
+
+        private final int expectedRows;
+        private final ColumnType fixedType;
+        private final String pattern;
+        private final DateTimeFormatter format;
+        private final boolean nullable;
+        private final BitSet nulls = new BitSet();
+        private final BitSet blanks = new BitSet();
+        private ColumnType type;
+        private int size;
+        private BitSet booleans;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private BitSet integral;
+        private int[] codes;
+        private List<String> dictionary;
+        private Map<String, Integer> lookup;
+
+        /**
+         * Create an accumulator for a column which begins after the supplied number of rows have already been read.
+         * The cells for the preceding rows are treated as missing.
+         */
+        Accumulator(final int expectedRows, final int precedingRows) {
+            this(expectedRows, precedingRows, null, null, true);
+        }
+
+        /**
+         * Create an accumulator for a column of a fixed type. Blank and missing values are stored as nulls if the
+         * column is nullable and rejected if it isn't.
+         */
+        Accumulator(final int expectedRows,
+                final int precedingRows,
+                final ColumnType fixedType,
+                final String pattern,
+                final boolean nullable) {
+            this.expectedRows = Math.max(expectedRows, 1);
+            this.fixedType = fixedType;
+            this.pattern = pattern;
+            this.format = pattern != null ? DateTimeFormatter.ofPattern(pattern) : null;
+            this.nullable = nullable;
+            this.size = precedingRows;
+            this.nulls.set(0, precedingRows);
+        }
+
+        /**
+         * Append the next value of the column
+         *
+         * @throws IllegalArgumentException if the column has a fixed type and the value cannot be converted to it
+         * @throws java.time.format.DateTimeParseException if the column is a date column and the value is not a date
+         *             in the column's pattern
+         */
+        void append(final String text) {
+            if (text == null || (fixedType != null && text.isEmpty())) {
+                if (!nullable) {
+                    throw new IllegalArgumentException("A value is required");
+                }
+                nulls.set(size);
+            } else
+                if (fixedType != null) {
+                    if (type == null) {
+                        migrate(fixedType);
+                    }
+                    ensureCapacity(size + 1);
+                    convert(text);
+                } else
+                    if (text.isEmpty()) {
+                        blanks.set(size);
+                    } else {
+                        ColumnType cellType = type == ColumnType.STRING ? ColumnType.STRING : classify(text);
+                        ColumnType target = cellType.widen(type);
+                        if (target == ColumnType.DOUBLE && cellType != ColumnType.DOUBLE
+                                && !isExactDouble(Long.parseLong(text))) {
+                            target = ColumnType.STRING;
+                        }
+                        if (target != type) {
+                            migrate(target);
+                        }
+                        ensureCapacity(size + 1);
+                        store(text, cellType);
+                    }
+            ++size;
+        }
+
+        TypedColumn build() {
+            if (type == null) {
+                return new StringColumn(size, nulls, blanks, new int[size], new String[0]);
+            }
+            switch (type) {
+                case BOOLEAN:
+                    return new BooleanColumn(size, nulls, blanks, booleans);
+                case INTEGER:
+                    return new IntColumn(size, nulls, blanks, Arrays.copyOf(ints, size));
+                case LONG:
+                    return new LongColumn(size, nulls, blanks, Arrays.copyOf(longs, size));
+                case DOUBLE:
+                    return new DoubleColumn(size, nulls, blanks, Arrays.copyOf(doubles, size), integral);
+                case DATE:
+                    return new DateColumn(size, nulls, blanks, Arrays.copyOf(ints, size), pattern, format);
+                default:
+                    return new StringColumn(size,
+                            nulls,
+                            blanks,
+                            Arrays.copyOf(codes, size),
+                            dictionary.toArray(new String[dictionary.size()]));
+            }
+        }
+
+        private void convert(final String text) {
+            switch (type) {
+                case BOOLEAN:
+                    if (!"true".equalsIgnoreCase(text) && !"false".equalsIgnoreCase(text)) {
+                        throw new IllegalArgumentException("Expected true or false");
+                    }
+                    booleans.set(size, Boolean.parseBoolean(text));
+                    break;
+                case DOUBLE:
+                    doubles[size] = Double.parseDouble(text);
+                    if (isCanonicalInteger(text)) {
+                        integral.set(size);
+                    }
+                    break;
+                case DATE:
+                    ints[size] = (int) LocalDate.parse(text, format).toEpochDay();
+                    break;
+                default:
+                    store(text, type);
+            }
+        }
+
+        private void store(final String text, final ColumnType cellType) {
+            switch (type) {
+                case BOOLEAN:
+                    booleans.set(size, Boolean.parseBoolean(text));
+                    break;
+                case INTEGER:
+                    ints[size] = Integer.parseInt(text);
+                    break;
+                case LONG:
+                    longs[size] = Long.parseLong(text);
+                    break;
+                case DOUBLE:
+                    if (cellType == ColumnType.DOUBLE) {
+                        doubles[size] = Double.parseDouble(text);
+                    } else {
+                        doubles[size] = Long.parseLong(text);
+                        integral.set(size);
+                    }
+                    break;
+                default:
+                    codes[size] = encode(text);
+            }
+        }
+
+        private void migrate(final ColumnType target) {
+            int capacity = Math.max(expectedRows, size + 1);
+            if (type == null) {
+                allocate(target, capacity);
+            } else
+                if (target == ColumnType.LONG) {
+                    longs = new long[capacity];
+                    for (int i = 0; i < size; ++i) {
+                        longs[i] = ints[i];
+                    }
+                    ints = null;
+                } else
+                    if (target == ColumnType.DOUBLE) {
+                        if (type == ColumnType.LONG) {
+                            for (int i = 0; i < size; ++i) {
+                                if (isValue(i) && !isExactDouble(longs[i])) {
+                                    migrate(ColumnType.STRING);
+                                    return;
+                                }
+                            }
+                        }
+                        doubles = new double[capacity];
+                        integral = new BitSet();
+                        for (int i = 0; i < size; ++i) {
+                            doubles[i] = type == ColumnType.LONG ? longs[i] : ints[i];
+                        }
+                        integral.set(0, size);
+                        ints = null;
+                        longs = null;
+                    } else {
+                        String[] previous = new String[size];
+                        for (int i = 0; i < size; ++i) {
+                            previous[i] = isValue(i) ? text(i) : null;
+                        }
+                        allocate(ColumnType.STRING, capacity);
+                        for (int i = 0; i < size; ++i) {
+                            if (previous[i] != null) {
+                                codes[i] = encode(previous[i]);
+                            }
+                        }
+                        booleans = null;
+                        ints = null;
+                        longs = null;
+                        doubles = null;
+                        integral = null;
+                    }
+            type = target;
+        }
+
+        private void allocate(final ColumnType target, final int capacity) {
+            switch (target) {
+                case BOOLEAN:
+                    booleans = new BitSet();
+                    break;
+                case INTEGER:
+                case DATE:
+                    ints = new int[capacity];
+                    break;
+                case LONG:
+                    longs = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    integral = new BitSet();
+                    break;
+                default:
+                    codes = new int[capacity];
+                    dictionary = new ArrayList<>();
+                    lookup = new HashMap<>();
+            }
+        }
+
+        private void ensureCapacity(final int required) {
+            switch (type) {
+                case INTEGER:
+                case DATE:
+                    if (ints.length < required) {
+                        ints = Arrays.copyOf(ints, grow(ints.length, required));
+                    }
+                    break;
+                case LONG:
+                    if (longs.length < required) {
+                        longs = Arrays.copyOf(longs, grow(longs.length, required));
+                    }
+                    break;
+                case DOUBLE:
+                    if (doubles.length < required) {
+                        doubles = Arrays.copyOf(doubles, grow(doubles.length, required));
+                    }
+                    break;
+                case STRING:
+                    if (codes.length < required) {
+                        codes = Arrays.copyOf(codes, grow(codes.length, required));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private int encode(final String text) {
+            Integer code = lookup.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                lookup.put(text, code);
+            }
+            return code;
+        }
+
+        private String text(final int row) {
+            switch (type) {
+                case BOOLEAN:
+                    return Boolean.toString(booleans.get(row));
+                case INTEGER:
+                    return Integer.toString(ints[row]);
+                case LONG:
+                    return Long.toString(longs[row]);
+                case DOUBLE:
+                    return integral.get(row) ? Long.toString((long) doubles[row]) : Double.toString(doubles[row]);
+                default:
+                    return dictionary.get(codes[row]);
+            }
+        }
+
+        private boolean isValue(final int row) {
+            return !nulls.get(row) && !blanks.get(row);
+        }
+
+        private static int grow(final int current, final int required) {
+            return Math.max(required, current + (current >> 1) + 1);
+        }
+    }
+
+    /**
+     * Return the narrowest {@link ColumnType} which holds the text without losing its original form
+     */
+    static ColumnType classify(final String text) {
+        if ("true".equals(text) || "false".equals(text)) {
+            return ColumnType.BOOLEAN;
+        } else
+            if (isCanonicalInteger(text)) {
+                try {
+                    long value = Long.parseLong(text);
+                    return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? ColumnType.INTEGER
+                            : ColumnType.LONG;
+                } catch (NumberFormatException e) {
+                    return ColumnType.STRING;
+                }
+            } else
+                if (isDecimal(text)) {
+                    try {
+                        return Double.toString(Double.parseDouble(text)).equals(text) ? ColumnType.DOUBLE
+                                : ColumnType.STRING;
+                    } catch (NumberFormatException e) {
+                        return ColumnType.STRING;
+                    }
+                } else {
+                    return ColumnType.STRING;
+                }
+    }
+
+    private static boolean isCanonicalInteger(final String text) {
+        int start = text.charAt(0) == '-' ? 1 : 0;
+        int length = text.length();
+        if (start == length || length - start > 19) {
+            return false;
+        } else
+            if (text.charAt(start) == '0') {
+                return length == 1;
+            }
+        for (int i = start; i < length; ++i) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDecimal(final String text) {
+        boolean point = false;
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                point = true;
+            } else
+                if ((c < '0' || c > '9') && c != '-' && c != 'E') {
+                    return false;
+                }
+        }
+        return point;
+    }
+
+    private static boolean isExactDouble(final long value) {
+        return value <= MAX_EXACT_DOUBLE && value >= -MAX_EXACT_DOUBLE;
+    }
+}
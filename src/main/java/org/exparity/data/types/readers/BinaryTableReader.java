@@ -0,0 +1,26 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.readers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.types.BinaryTableFormat;
+import org.exparity.data.types.Table;
+
+/**
+ * Reads a {@link Table} written in the {@link BinaryTableFormat}. The header is stored within the format so the
+ * <code>hasHeader</code> flag is ignored.
+ *
+ * @author Stewart Bissett
+ */
+public class BinaryTableReader implements org.exparity.data.types.Table.TableReader {
+
+    @Override
+    public Table read(final InputStream is, final boolean hasHeader) throws BadFormatException, IOException {
+        return BinaryTableFormat.read(is);
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+import org.exparity.data.types.Array;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.Scalar;
+import org.exparity.data.types.Table;
+import org.exparity.data.types.Table.TableTransform;
+
+/**
+ * Implementation of a {@link TableTransform} which groups the rows of a {@link Table} by the values of one or more key
+ * columns and aggregates each group into a single row. The aggregated table has the key columns followed by one column
+ * per aggregate, and has a row for each group in the order the group first appears in the table.
+ * <p>
+ * Aggregates are accumulated in primitive fields as each row is read. Numeric aggregates ignore null and blank values
+ * and leave the cell blank for a group which has no values. Sums, minimums and maximums of whole numbers are returned
+ * as whole numbers.
+ * <p>
+ * If a {@link ForkJoinPool} is set the table is split into chunks of rows which are aggregated in parallel and the
+ * partial aggregates of each chunk are then merged in order.
+ *
+ * <pre>
+ * Table totals = trades.as(TableAggregation.groupBy("Account").count().sum("Amount").max("Amount"));
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableAggregation implements TableTransform<Table> {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final Scalar EMPTY = new Scalar("");
+
+    private enum Function {
+        COUNT, SUM, MIN, MAX, MEAN, DISTINCT_COUNT
+    }
+
+    /**
+     * Group the rows of a table by the columns with the supplied ids
+     */
+    public static TableAggregation groupBy(final int... columnIds) {
+        List<Object> keys = new ArrayList<>(columnIds.length);
+        for (int columnId : columnIds) {
+            Validate.isTrue(columnId >= 0, "Column ids cannot be negative");
+            keys.add(columnId);
+        }
+        return new TableAggregation(keys);
+    }
+
+    /**
+     * Group the rows of a table by the columns with the supplied headers
+     */
+    public static TableAggregation groupBy(final String... headers) {
+        Validate.noNullElements(headers, "Headers cannot be null");
+        return new TableAggregation(new ArrayList<Object>(Arrays.asList(headers)));
+    }
+
+    private final List<Object> keys;
+    private final List<Function> functions = new ArrayList<>();
+    private final List<Object> columns = new ArrayList<>();
+    private ForkJoinPool pool;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private TableAggregation(final List<Object> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Count the rows in each group
+     */
+    public TableAggregation count() {
+        return add(Function.COUNT, null);
+    }
+
+    public TableAggregation sum(final int columnId) {
+        return add(Function.SUM, columnId);
+    }
+
+    public TableAggregation sum(final String header) {
+        return add(Function.SUM, header);
+    }
+
+    public TableAggregation min(final int columnId) {
+        return add(Function.MIN, columnId);
+    }
+
+    public TableAggregation min(final String header) {
+        return add(Function.MIN, header);
+    }
+
+    public TableAggregation max(final int columnId) {
+        return add(Function.MAX, columnId);
+    }
+
+    public TableAggregation max(final String header) {
+        return add(Function.MAX, header);
+    }
+
+    public TableAggregation mean(final int columnId) {
+        return add(Function.MEAN, columnId);
+    }
+
+    public TableAggregation mean(final String header) {
+        return add(Function.MEAN, header);
+    }
+
+    /**
+     * Count the distinct values which are neither null nor blank in a column of each group
+     */
+    public TableAggregation distinctCount(final int columnId) {
+        return add(Function.DISTINCT_COUNT, columnId);
+    }
+
+    /**
+     * Count the distinct values which are neither null nor blank in a column of each group
+     */
+    public TableAggregation distinctCount(final String header) {
+        return add(Function.DISTINCT_COUNT, header);
+    }
+
+    /**
+     * Set the pool to aggregate chunks of the table on in parallel. By default the table is aggregated on the calling
+     * thread.
+     */
+    public TableAggregation setPool(final ForkJoinPool pool) {
+        Validate.notNull(pool, "Pool cannot be null");
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Set the number of rows in each chunk aggregated in parallel. Defaults to 65536 rows.
+     */
+    public TableAggregation setChunkSize(final int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    @Override
+    public Table apply(final Table table) {
+        final int[] keyColumnIds = resolve(table, keys);
+        final int[] columnIds = resolve(table, columns);
+        final int numOfRows = table.getNumOfRows();
+
+        Map<Object, Group> groups;
+        if (pool == null || numOfRows <= chunkSize) {
+            groups = aggregate(table, keyColumnIds, columnIds, 0, numOfRows);
+        } else {
+            List<ForkJoinTask<Map<Object, Group>>> tasks = new ArrayList<>();
+            for (int from = 0; from < numOfRows; from += chunkSize) {
+                final int start = from, end = Math.min(numOfRows, from + chunkSize);
+                tasks.add(pool.submit(() -> aggregate(table, keyColumnIds, columnIds, start, end)));
+            }
+            groups = tasks.get(0).join();
+            for (int i = 1; i < tasks.size(); ++i) {
+                for (Group partial : tasks.get(i).join().values()) {
+                    Group group = groups.get(partial.key);
+                    if (group == null) {
+                        groups.put(partial.key, partial);
+                    } else {
+                        group.merge(partial);
+                    }
+                }
+            }
+        }
+
+        List<String> header = new ArrayList<>(keyColumnIds.length + columnIds.length);
+        for (int keyColumnId : keyColumnIds) {
+            header.add(nameOf(table, keyColumnId));
+        }
+        for (int i = 0; i < functions.size(); ++i) {
+            Function function = functions.get(i);
+            header.add(function == Function.COUNT ? "count"
+                    : function.name().toLowerCase() + "(" + nameOf(table, columnIds[i]) + ")");
+        }
+
+        Table.Builder aggregated = Table.builder(groups.size()).setHeader(header);
+        for (Group group : groups.values()) {
+            Scalar[] values = new Scalar[keyColumnIds.length + functions.size()];
+            for (int i = 0; i < keyColumnIds.length; ++i) {
+                Scalar value = table.getValue(group.firstRowId, keyColumnIds[i]);
+                values[i] = value != null ? value : EMPTY;
+            }
+            for (int i = 0; i < functions.size(); ++i) {
+                values[keyColumnIds.length + i] = group.result(functions.get(i), i);
+            }
+            aggregated.addRow(Row.of(Array.of(values), header));
+        }
+        return aggregated.build();
+    }
+
+    private Map<Object, Group> aggregate(final Table table,
+            final int[] keyColumnIds,
+            final int[] columnIds,
+            final int from,
+            final int to) {
+        Map<Object, Group> groups = new LinkedHashMap<>();
+        for (int rowId = from; rowId < to; ++rowId) {
+            Object key = keyOf(table, rowId, keyColumnIds);
+            Group group = groups.get(key);
+            if (group == null) {
+                group = new Group(key, rowId, functions);
+                groups.put(key, group);
+            }
+            group.count++;
+            for (int i = 0; i < columnIds.length; ++i) {
+                Function function = functions.get(i);
+                int columnId = columnIds[i];
+                if (function == Function.COUNT || !table.hasValue(rowId, columnId)) {
+                    continue;
+                }
+                if (function == Function.DISTINCT_COUNT) {
+                    group.distincts.get(i).add(table.getValueAsString(rowId, columnId));
+                } else {
+                    group.add(i, doubleOf(table, rowId, columnId));
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static double doubleOf(final Table table, final int rowId, final int columnId) {
+        try {
+            return table.getValueAsDouble(rowId, columnId);
+        } catch (NumberFormatException e) {
+            String value = table.getValueAsString(rowId, columnId);
+            throw new BadFormatException("Value '" + value + "' at row " + rowId + ", column " + columnId
+                    + " is not a number", value);
+        }
+    }
+
+    private static Object keyOf(final Table table, final int rowId, final int[] columnIds) {
+        if (columnIds.length == 1) {
+            return table.getValueAsString(rowId, columnIds[0]);
+        }
+        String[] key = new String[columnIds.length];
+        for (int i = 0; i < columnIds.length; ++i) {
+            key[i] = table.getValueAsString(rowId, columnIds[i]);
+        }
+        return Arrays.asList(key);
+    }
+
+    private static String nameOf(final Table table, final int columnId) {
+        String name = table.getHeaderAsString(columnId);
+        return name != null ? name : String.valueOf(columnId);
+    }
+
+    private TableAggregation add(final Function function, final Object column) {
+        if (column instanceof Integer) {
+            Validate.isTrue((Integer) column >= 0, "Column ids cannot be negative");
+        } else
+            if (function != Function.COUNT) {
+                Validate.notNull(column, "Header cannot be null");
+            }
+        functions.add(function);
+        columns.add(column != null ? column : 0);
+        return this;
+    }
+
+    private static int[] resolve(final Table table, final List<Object> columns) {
+        int[] columnIds = new int[columns.size()];
+        for (int i = 0; i < columnIds.length; ++i) {
+            Object column = columns.get(i);
+            if (column instanceof Integer) {
+                columnIds[i] = (Integer) column;
+            } else {
+                columnIds[i] = table.getHeaderIndex((String) column);
+                Validate.isTrue(columnIds[i] != Table.HEADER_NOT_FOUND, "No column with header '" + column
+                        + "' found");
+            }
+        }
+        return columnIds;
+    }
+
+    /**
+     * The running aggregates of a single group. Each aggregate uses the slot of the primitive arrays at its position in
+     * the list of aggregates.
+     */
+    private static final class Group {
+
+        private final Object key;
+        private final int firstRowId;
+        private long count;
+        private final long[] counts;
+        private final double[] sums, mins, maxs;
+        private final boolean[] integral;
+        private final List<Set<String>> distincts;
+
+        private Group(final Object key, final int firstRowId, final List<Function> functions) {
+            int numOfAggregates = functions.size();
+            this.key = key;
+            this.firstRowId = firstRowId;
+            this.counts = new long[numOfAggregates];
+            this.sums = new double[numOfAggregates];
+            this.mins = new double[numOfAggregates];
+            this.maxs = new double[numOfAggregates];
+            this.integral = new boolean[numOfAggregates];
+            this.distincts = new ArrayList<>(numOfAggregates);
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+            Arrays.fill(integral, true);
+            for (int i = 0; i < numOfAggregates; ++i) {
+                distincts.add(functions.get(i) == Function.DISTINCT_COUNT ? new HashSet<>() : null);
+            }
+        }
+
+        private void add(final int i, final double value) {
+            counts[i]++;
+            sums[i] += value;
+            mins[i] = Math.min(mins[i], value);
+            maxs[i] = Math.max(maxs[i], value);
+            integral[i] &= value == Math.rint(value);
+        }
+
+        private void merge(final Group other) {
+            count += other.count;
+            for (int i = 0; i < counts.length; ++i) {
+                counts[i] += other.counts[i];
+                sums[i] += other.sums[i];
+                mins[i] = Math.min(mins[i], other.mins[i]);
+                maxs[i] = Math.max(maxs[i], other.maxs[i]);
+                integral[i] &= other.integral[i];
+                if (distincts.get(i) != null) {
+                    distincts.get(i).addAll(other.distincts.get(i));
+                }
+            }
+        }
+
+        private Scalar result(final Function function, final int i) {
+            switch (function) {
+                case COUNT:
+                    return new Scalar(count);
+                case DISTINCT_COUNT:
+                    return new Scalar(distincts.get(i).size());
+                case MEAN:
+                    return counts[i] > 0 ? new Scalar(sums[i] / counts[i]) : EMPTY;
+                case SUM:
+                    return counts[i] > 0 ? number(sums[i], integral[i]) : EMPTY;
+                case MIN:
+                    return counts[i] > 0 ? number(mins[i], integral[i]) : EMPTY;
+                case MAX:
+                    return counts[i] > 0 ? number(maxs[i], integral[i]) : EMPTY;
+                default:
+                    throw new IllegalStateException("Unknown aggregate " + function);
+            }
+        }
+
+        private static Scalar number(final double value, final boolean integral) {
+            return integral && Math.abs(value) < MAX_EXACT_DOUBLE ? new Scalar((long) value) : new Scalar(value);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.csv.MappedCsvReader;
+import org.exparity.data.types.Array;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.Scalar;
+import org.exparity.data.types.Table;
+import org.exparity.data.types.Table.TableTransform;
+import org.exparity.data.types.writers.CsvTableWriter;
+import org.exparity.io.filesystem.FileSystems;
+
+/**
+ * Implementation of a {@link TableTransform} which joins a {@link Table} to another table by the values of one or more
+ * key columns. The table the transform is applied to is the left, or probe, side of the join and the table the join is
+ * created with is the right, or build, side. The right table is loaded into a hash table keyed on its key columns and
+ * each row of the left table is matched against it, so the join takes a single pass over each table.
+ * <p>
+ * Spilling is off unless a threshold is set with {@link #setSpillThreshold(int)}. If the right table then has more rows
+ * than the threshold the keys of its rows are first partitioned by hash into temporary files and the hash table is
+ * built for one partition at a time, so only one partition of keys is hashed at once. Both tables and the matched rows
+ * are still held in memory, so spilling limits the size of the hash table but not the memory used by the join as a
+ * whole, and it costs a write and a read of every right key.
+ * <p>
+ * The joined table has the columns of the left table followed by the columns of the right table, except for an anti
+ * join which only returns left rows. Rows are returned in the order of the left table and keys are compared by their
+ * string value. A row with a null key value never matches.
+ *
+ * <pre>
+ * Table enriched = trades.as(TableJoin.left(accounts).on("Account", "Id"));
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableJoin implements TableTransform<Table> {
+
+    /**
+     * The rows a join returns
+     */
+    public enum JoinType {
+
+        /**
+         * Left rows joined to each right row with the same key. Left rows with no match are dropped.
+         */
+        INNER,
+
+        /**
+         * Left rows joined to each right row with the same key. Left rows with no match are returned once with empty
+         * values for the right columns.
+         */
+        LEFT,
+
+        /**
+         * Left rows which have no right row with the same key
+         */
+        ANTI
+    }
+
+    private static final Scalar EMPTY = new Scalar("");
+
+    /**
+     * Create an inner join to the right table
+     */
+    public static TableJoin inner(final Table right) {
+        return new TableJoin(JoinType.INNER, right);
+    }
+
+    /**
+     * Create a left outer join to the right table
+     */
+    public static TableJoin left(final Table right) {
+        return new TableJoin(JoinType.LEFT, right);
+    }
+
+    /**
+     * Create an anti join to the right table
+     */
+    public static TableJoin anti(final Table right) {
+        return new TableJoin(JoinType.ANTI, right);
+    }
+
+    private final JoinType type;
+    private final Table right;
+    private final List<Object> leftKeys = new ArrayList<>(), rightKeys = new ArrayList<>();
+    private int spillThreshold;
+    private File tempDirectory;
+
+    public TableJoin(final JoinType type, final Table right) {
+        Validate.notNull(type, "Join type cannot be null");
+        Validate.notNull(right, "Right table cannot be null");
+        this.type = type;
+        this.right = right;
+    }
+
+    /**
+     * Add a pair of key columns to join on. Call more than once to join on a compound key.
+     * @param leftColumnId the id of the key column in the left table
+     * @param rightColumnId the id of the key column in the right table
+     */
+    public TableJoin on(final int leftColumnId, final int rightColumnId) {
+        Validate.isTrue(leftColumnId >= 0 && rightColumnId >= 0, "Column ids cannot be negative");
+        leftKeys.add(leftColumnId);
+        rightKeys.add(rightColumnId);
+        return this;
+    }
+
+    /**
+     * Add a pair of key columns to join on by their headers. Call more than once to join on a compound key.
+     * @param leftHeader the header of the key column in the left table
+     * @param rightHeader the header of the key column in the right table
+     */
+    public TableJoin on(final String leftHeader, final String rightHeader) {
+        Validate.notNull(leftHeader, "Left header cannot be null");
+        Validate.notNull(rightHeader, "Right header cannot be null");
+        leftKeys.add(leftHeader);
+        rightKeys.add(rightHeader);
+        return this;
+    }
+
+    /**
+     * Set the number of right rows above which the build side is partitioned into temporary files. By default the build
+     * side is never partitioned.
+     */
+    public TableJoin setSpillThreshold(final int spillThreshold) {
+        Validate.isTrue(spillThreshold > 0, "Spill threshold must be positive");
+        this.spillThreshold = spillThreshold;
+        return this;
+    }
+
+    /**
+     * Set the directory partitions are spilled to. Defaults to the temporary directory of the local filesystem.
+     */
+    public TableJoin setTempDirectory(final File tempDirectory) {
+        Validate.notNull(tempDirectory, "Temp directory cannot be null");
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    @Override
+    public Table apply(final Table left) {
+        Validate.isTrue(!leftKeys.isEmpty(), "No key columns declared for join");
+        int[] leftColumnIds = resolve(left, leftKeys), rightColumnIds = resolve(right, rightKeys);
+        int leftWidth = left.getNumOfColumns(), rightWidth = right.getNumOfColumns();
+
+        List<String> header = type == JoinType.ANTI ? left.getHeader() : joinHeaders(left, leftWidth, rightWidth);
+        List<Row>[] matches;
+        try {
+            if (spillThreshold > 0 && right.getNumOfRows() > spillThreshold) {
+                matches = matchBySpilling(left, leftColumnIds, rightColumnIds);
+            } else {
+                matches = match(left, leftColumnIds, rightColumnIds);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Table.Builder joined = Table.builder(left.getNumOfRows()).setHeader(header);
+        for (int rowId = 0; rowId < matches.length; ++rowId) {
+            Row row = left.getRow(rowId);
+            if (type == JoinType.ANTI) {
+                if (matches[rowId] == null) {
+                    joined.addRow(row);
+                }
+            } else
+                if (matches[rowId] != null) {
+                    for (Row match : matches[rowId]) {
+                        joined.addRow(join(row, leftWidth, match, rightWidth, header));
+                    }
+                } else
+                    if (type == JoinType.LEFT) {
+                        joined.addRow(join(row, leftWidth, null, rightWidth, header));
+                    }
+        }
+        return joined.build();
+    }
+
+    /**
+     * Return the matching right rows for each left row, or null for a left row with no match
+     */
+    private List<Row>[] match(final Table left, final int[] leftColumnIds, final int[] rightColumnIds) {
+        Map<Object, List<Row>> build = new HashMap<>(Math.max(16, (int) (right.getNumOfRows() / 0.75f) + 1));
+        for (Row row : right.rowIterator()) {
+            addToBuild(build, row, rightColumnIds);
+        }
+        List<Row>[] matches = newMatches(left.getNumOfRows());
+        for (int rowId = 0; rowId < matches.length; ++rowId) {
+            Object key = keyOf(left.getRow(rowId), leftColumnIds);
+            if (key != null) {
+                matches[rowId] = build.get(key);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Partition the keys of the right rows by hash into temporary files and then match the left rows one partition at
+     * a time. Each partition holds the key values and row id of its right rows, so the matches refer to the rows of the
+     * right table rather than to copies read back from the partition.
+     */
+    private List<Row>[] matchBySpilling(final Table left, final int[] leftColumnIds, final int[] rightColumnIds)
+            throws IOException {
+        int numOfPartitions = Math.max(2, (right.getNumOfRows() + spillThreshold - 1) / spillThreshold);
+        File directory = tempDirectory != null ? tempDirectory : new File(FileSystems.newInstance().getTempDirectory());
+        File[] partitions = new File[numOfPartitions];
+        try {
+            CsvTableWriter.RowWriter[] writers = new CsvTableWriter.RowWriter[numOfPartitions];
+            try {
+                for (int i = 0; i < numOfPartitions; ++i) {
+                    partitions[i] = File.createTempFile("join", ".csv", directory);
+                    writers[i] = CsvTableWriter.open(new FileOutputStream(partitions[i]), StandardCharsets.UTF_8);
+                }
+                String[] entry = new String[rightColumnIds.length + 1];
+                for (int rowId = 0; rowId < right.getNumOfRows(); ++rowId) {
+                    Row row = right.getRow(rowId);
+                    Object key = keyOf(row, rightColumnIds);
+                    if (key != null) {
+                        entry[0] = Integer.toString(rowId);
+                        for (int i = 0; i < rightColumnIds.length; ++i) {
+                            entry[i + 1] = row.getValueAsString(rightColumnIds[i]);
+                        }
+                        writers[partitionOf(key, numOfPartitions)].writeRow(entry);
+                    }
+                }
+            } finally {
+                for (CsvTableWriter.RowWriter writer : writers) {
+                    if (writer != null) {
+                        writer.close();
+                    }
+                }
+            }
+
+            int[] leftPartitions = new int[left.getNumOfRows()];
+            for (int rowId = 0; rowId < leftPartitions.length; ++rowId) {
+                Object key = keyOf(left.getRow(rowId), leftColumnIds);
+                leftPartitions[rowId] = key != null ? partitionOf(key, numOfPartitions) : -1;
+            }
+
+            List<Row>[] matches = newMatches(leftPartitions.length);
+            for (int partition = 0; partition < numOfPartitions; ++partition) {
+                Map<Object, List<Row>> build = new HashMap<>();
+                try (MappedCsvReader reader = MappedCsvReader.open(partitions[partition], false,
+                        StandardCharsets.UTF_8)) {
+                    while (reader.next()) {
+                        addToBuild(build, readKey(reader, rightColumnIds.length),
+                                right.getRow((int) reader.getFieldAsLong(0)));
+                    }
+                }
+                for (int rowId = 0; rowId < leftPartitions.length; ++rowId) {
+                    if (leftPartitions[rowId] == partition) {
+                        matches[rowId] = build.get(keyOf(left.getRow(rowId), leftColumnIds));
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            for (File partition : partitions) {
+                if (partition != null) {
+                    partition.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the key of a partition entry in the same form as {@link #keyOf(Row, int[])}
+     */
+    private static Object readKey(final MappedCsvReader reader, final int numOfKeys) {
+        if (numOfKeys == 1) {
+            return reader.getFieldAsString(1);
+        }
+        String[] key = new String[numOfKeys];
+        for (int i = 0; i < numOfKeys; ++i) {
+            key[i] = reader.getFieldAsString(i + 1);
+        }
+        return Arrays.asList(key);
+    }
+
+    private static void addToBuild(final Map<Object, List<Row>> build, final Row row, final int[] columnIds) {
+        addToBuild(build, keyOf(row, columnIds), row);
+    }
+
+    private static void addToBuild(final Map<Object, List<Row>> build, final Object key, final Row row) {
+        if (key != null) {
+            List<Row> rows = build.get(key);
+            if (rows == null) {
+                build.put(key, Collections.singletonList(row));
+            } else {
+                if (rows.size() == 1) {
+                    rows = new ArrayList<>(rows);
+                    build.put(key, rows);
+                }
+                rows.add(row);
+            }
+        }
+    }
+
+    /**
+     * Return the key of the row, or null if any of the key values is missing
+     */
+    private static Object keyOf(final Row row, final int[] columnIds) {
+        if (columnIds.length == 1) {
+            return row.getValueAsString(columnIds[0]);
+        }
+        String[] key = new String[columnIds.length];
+        for (int i = 0; i < columnIds.length; ++i) {
+            key[i] = row.getValueAsString(columnIds[i]);
+            if (key[i] == null) {
+                return null;
+            }
+        }
+        return Arrays.asList(key);
+    }
+
+    private static int partitionOf(final Object key, final int numOfPartitions) {
+        int hash = key.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % numOfPartitions;
+    }
+
+    private static Row join(final Row left,
+            final int leftWidth,
+            final Row right,
+            final int rightWidth,
+            final List<String> header) {
+        Scalar[] values = new Scalar[leftWidth + rightWidth];
+        for (int i = 0; i < leftWidth; ++i) {
+            Scalar value = left.getValue(i);
+            values[i] = value != null ? value : EMPTY;
+        }
+        for (int i = 0; i < rightWidth; ++i) {
+            Scalar value = right != null ? right.getValue(i) : null;
+            values[leftWidth + i] = value != null ? value : EMPTY;
+        }
+        return Row.of(Array.of(values), header);
+    }
+
+    /**
+     * Return the left header followed by the right header. A side without a header contributes blank names so the
+     * header lines up with the joined columns.
+     */
+    private List<String> joinHeaders(final Table left, final int leftWidth, final int rightWidth) {
+        if (!left.hasHeader() && !right.hasHeader()) {
+            return Collections.emptyList();
+        }
+        List<String> header = new ArrayList<>(leftWidth + rightWidth);
+        header.addAll(headerOf(left, leftWidth));
+        header.addAll(headerOf(right, rightWidth));
+        return header;
+    }
+
+    /**
+     * Return the header of the table trimmed or padded with blank names to the width of the table
+     */
+    private static List<String> headerOf(final Table table, final int width) {
+        List<String> header = new ArrayList<>(width);
+        if (table.hasHeader()) {
+            header.addAll(table.getHeader().subList(0, Math.min(width, table.getHeader().size())));
+        }
+        while (header.size() < width) {
+            header.add("");
+        }
+        return header;
+    }
+
+    private static int[] resolve(final Table table, final List<Object> keys) {
+        int[] columnIds = new int[keys.size()];
+        for (int i = 0; i < columnIds.length; ++i) {
+            Object key = keys.get(i);
+            if (key instanceof Integer) {
+                columnIds[i] = (Integer) key;
+            } else {
+                columnIds[i] = table.getHeaderIndex((String) key);
+                Validate.isTrue(columnIds[i] != Table.HEADER_NOT_FOUND, "No column with header '" + key + "' found");
+            }
+        }
+        return columnIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Row>[] newMatches(final int numOfRows) {
+        return (List<Row>[]) java.lang.reflect.Array.newInstance(List.class, numOfRows);
+    }
+}
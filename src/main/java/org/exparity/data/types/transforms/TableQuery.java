@@ -0,0 +1,264 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.Table;
+import org.exparity.data.types.Table.TableTransform;
+
+/**
+ * Implementation of a {@link TableTransform} which filters and projects a {@link Table}. A query is declared up front
+ * and nothing is evaluated until it is applied to a table, at which point every condition is evaluated in a single
+ * pass. Rows are filtered in batches: each condition narrows a selection vector of the row ids still matching in the
+ * batch, so a row is only tested against a condition if it passed the conditions before it and no rows are copied
+ * until the selected rows and columns are materialised at the end.
+ *
+ * <pre>
+ * Table gbp = trades.as(TableQuery.select("Trade", "Amount")
+ *         .whereEquals("Currency", "GBP")
+ *         .whereNumber("Amount", amount -&gt; amount &gt; 1000)
+ *         .limit(100));
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableQuery implements TableTransform<Table> {
+
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Create a query which returns every column
+     */
+    public static TableQuery selectAll() {
+        return new TableQuery(null);
+    }
+
+    /**
+     * Create a query which returns the columns with the supplied ids, in the order supplied
+     */
+    public static TableQuery select(final int... columnIds) {
+        List<Object> columns = new ArrayList<>(columnIds.length);
+        for (int columnId : columnIds) {
+            Validate.isTrue(columnId >= 0, "Column ids cannot be negative");
+            columns.add(columnId);
+        }
+        return new TableQuery(columns);
+    }
+
+    /**
+     * Create a query which returns the columns with the supplied headers, in the order supplied
+     */
+    public static TableQuery select(final String... headers) {
+        Validate.noNullElements(headers, "Headers cannot be null");
+        return new TableQuery(new ArrayList<Object>(Arrays.asList(headers)));
+    }
+
+    private final List<Object> columns;
+    private final List<Condition> conditions = new ArrayList<>();
+    private int limit = Integer.MAX_VALUE;
+
+    private TableQuery(final List<Object> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Keep the rows which match a predicate on the whole row. Prefer the column conditions where possible as they do
+     * not need the row to be materialised.
+     */
+    public TableQuery where(final Predicate<Row> predicate) {
+        Validate.notNull(predicate, "Predicate cannot be null");
+        return add(new Condition(null) {
+
+            @Override
+            boolean test(final Table table, final int rowId, final int columnId) {
+                return predicate.test(table.getRow(rowId));
+            }
+        });
+    }
+
+    /**
+     * Keep the rows where the text of a column matches a predicate. The predicate is passed null for a missing value.
+     */
+    public TableQuery whereValue(final int columnId, final Predicate<String> predicate) {
+        return whereValue((Object) columnId, predicate);
+    }
+
+    /**
+     * Keep the rows where the text of a column matches a predicate. The predicate is passed null for a missing value.
+     */
+    public TableQuery whereValue(final String header, final Predicate<String> predicate) {
+        return whereValue((Object) header, predicate);
+    }
+
+    /**
+     * Keep the rows where the text of a column equals a value
+     */
+    public TableQuery whereEquals(final int columnId, final String value) {
+        Validate.notNull(value, "Value cannot be null");
+        return whereValue((Object) columnId, text -> value.equals(text));
+    }
+
+    /**
+     * Keep the rows where the text of a column equals a value
+     */
+    public TableQuery whereEquals(final String header, final String value) {
+        Validate.notNull(value, "Value cannot be null");
+        return whereValue((Object) header, text -> value.equals(text));
+    }
+
+    /**
+     * Keep the rows where the numeric value of a column matches a predicate. Rows where the column is null or blank
+     * never match and a value which is not a number raises a {@link BadFormatException}.
+     */
+    public TableQuery whereNumber(final int columnId, final DoublePredicate predicate) {
+        return whereNumber((Object) columnId, predicate);
+    }
+
+    /**
+     * Keep the rows where the numeric value of a column matches a predicate. Rows where the column is null or blank
+     * never match and a value which is not a number raises a {@link BadFormatException}.
+     */
+    public TableQuery whereNumber(final String header, final DoublePredicate predicate) {
+        return whereNumber((Object) header, predicate);
+    }
+
+    /**
+     * Return at most the supplied number of rows. Filtering stops as soon as the limit is reached.
+     */
+    public TableQuery limit(final int limit) {
+        Validate.isTrue(limit >= 0, "Limit cannot be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Evaluate the conditions of the query against a table without materialising any rows
+     *
+     * @return the ids of the matching rows in table order, up to the limit of the query
+     */
+    public int[] findRowIds(final Table table) {
+        int numOfRows = table.getNumOfRows();
+        int[] columnIds = new int[conditions.size()];
+        for (int i = 0; i < columnIds.length; ++i) {
+            Object column = conditions.get(i).column;
+            columnIds[i] = column != null ? resolve(table, column) : -1;
+        }
+
+        int[] selected = new int[Math.min(limit, numOfRows)];
+        int[] batch = new int[Math.min(BATCH_SIZE, Math.max(1, numOfRows))];
+        int numOfSelected = 0;
+        for (int from = 0; from < numOfRows && numOfSelected < selected.length; from += batch.length) {
+            int size = Math.min(batch.length, numOfRows - from);
+            for (int i = 0; i < size; ++i) {
+                batch[i] = from + i;
+            }
+            for (int i = 0; i < columnIds.length && size > 0; ++i) {
+                size = conditions.get(i).filter(table, columnIds[i], batch, size);
+            }
+            size = Math.min(size, selected.length - numOfSelected);
+            System.arraycopy(batch, 0, selected, numOfSelected, size);
+            numOfSelected += size;
+        }
+        return numOfSelected == selected.length ? selected : Arrays.copyOf(selected, numOfSelected);
+    }
+
+    @Override
+    public Table apply(final Table table) {
+        int[] columnIds = null;
+        if (columns != null) {
+            columnIds = new int[columns.size()];
+            for (int i = 0; i < columnIds.length; ++i) {
+                columnIds[i] = resolve(table, columns.get(i));
+            }
+        }
+        return table.select(findRowIds(table), columnIds);
+    }
+
+    private TableQuery whereValue(final Object column, final Predicate<String> predicate) {
+        Validate.notNull(predicate, "Predicate cannot be null");
+        return add(new Condition(column) {
+
+            @Override
+            boolean test(final Table table, final int rowId, final int columnId) {
+                return predicate.test(table.getValueAsString(rowId, columnId));
+            }
+        });
+    }
+
+    private TableQuery whereNumber(final Object column, final DoublePredicate predicate) {
+        Validate.notNull(predicate, "Predicate cannot be null");
+        return add(new Condition(column) {
+
+            @Override
+            boolean test(final Table table, final int rowId, final int columnId) {
+                if (!table.hasValue(rowId, columnId)) {
+                    return false;
+                }
+                try {
+                    return predicate.test(table.getValueAsDouble(rowId, columnId));
+                } catch (NumberFormatException e) {
+                    String value = table.getValueAsString(rowId, columnId);
+                    throw new BadFormatException("Value '" + value + "' at row " + rowId + ", column " + columnId
+                            + " is not a number", value);
+                }
+            }
+        });
+    }
+
+    private TableQuery add(final Condition condition) {
+        if (condition.column instanceof Integer) {
+            Validate.isTrue((Integer) condition.column >= 0, "Column ids cannot be negative");
+        }
+        conditions.add(condition);
+        return this;
+    }
+
+    private static int resolve(final Table table, final Object column) {
+        if (column instanceof Integer) {
+            return (Integer) column;
+        }
+        int columnId = table.getHeaderIndex((String) column);
+        Validate.isTrue(columnId != Table.HEADER_NOT_FOUND, "No column with header '" + column + "' found");
+        return columnId;
+    }
+
+    /**
+     * A single condition of the query, optionally on a column identified by id or header
+     */
+    private abstract static class Condition {
+
+        private final Object column;
+
+        private Condition(final Object column) {
+            this.column = column;
+        }
+
+        /**
+         * Narrow the selection vector to the rows which match this condition
+         *
+         * @return the number of rows left in the selection vector
+         */
+        int filter(final Table table, final int columnId, final int[] selection, final int size) {
+            int selected = 0;
+            for (int i = 0; i < size; ++i) {
+                int rowId = selection[i];
+                if (test(table, rowId, columnId)) {
+                    selection[selected++] = rowId;
+                }
+            }
+            return selected;
+        }
+
+        abstract boolean test(Table table, int rowId, int columnId);
+    }
+}
@@ -0,0 +1,589 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.csv.MappedCsvReader;
+import org.exparity.data.types.ColumnType;
+import org.exparity.data.types.ColumnarTable;
+import org.exparity.data.types.Table;
+import org.exparity.data.types.Table.TableTransform;
+import org.exparity.data.types.writers.CsvTableWriter;
+import org.exparity.io.filesystem.FileSystems;
+
+/**
+ * Implementation of a {@link TableTransform} which sorts the rows of a {@link Table} by one or more columns. Each key
+ * column is read once into a typed sort key before sorting, so values are never re-parsed whilst rows are compared. A
+ * permutation of the row ids is then merge sorted, in parallel for large tables, and the table is reordered in a
+ * single pass. The sort is stable.
+ * <p>
+ * Values which are numbers are compared numerically and are ordered before values which are text, which are compared
+ * lexicographically. Null and blank values are ordered first unless {@link #nullsLast()} is declared, regardless of
+ * the direction of the key.
+ * <p>
+ * A CSV file too large to be loaded can be sorted into another file with {@link #sort(File, boolean, File)}, which
+ * sorts runs of the file in memory, spills each run to a temporary file and then merges the runs.
+ *
+ * <pre>
+ * Table sorted = trades.as(TableSort.by("Account").thenBy("Amount").descending().nullsLast());
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class TableSort implements TableTransform<Table> {
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int DEFAULT_MAX_ROWS_IN_MEMORY = 1_000_000;
+    private static final byte MISSING = 0, NUMBER = 1, TEXT = 2;
+
+    /**
+     * Create a sort which orders rows by the column with the supplied id, ascending
+     */
+    public static TableSort by(final int columnId) {
+        return new TableSort().thenBy(columnId);
+    }
+
+    /**
+     * Create a sort which orders rows by the column with the supplied header, ascending
+     */
+    public static TableSort by(final String header) {
+        return new TableSort().thenBy(header);
+    }
+
+    private final List<Key> keys = new ArrayList<>();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int maxRowsInMemory = DEFAULT_MAX_ROWS_IN_MEMORY;
+    private File tempDirectory;
+
+    private TableSort() {}
+
+    /**
+     * Order rows which are equal on the previous keys by the column with the supplied id, ascending
+     */
+    public TableSort thenBy(final int columnId) {
+        Validate.isTrue(columnId >= 0, "Column ids cannot be negative");
+        keys.add(new Key(columnId));
+        return this;
+    }
+
+    /**
+     * Order rows which are equal on the previous keys by the column with the supplied header, ascending
+     */
+    public TableSort thenBy(final String header) {
+        Validate.notNull(header, "Header cannot be null");
+        keys.add(new Key(header));
+        return this;
+    }
+
+    /**
+     * Order the most recently added key in ascending order
+     */
+    public TableSort ascending() {
+        lastKey().descending = false;
+        return this;
+    }
+
+    /**
+     * Order the most recently added key in descending order
+     */
+    public TableSort descending() {
+        lastKey().descending = true;
+        return this;
+    }
+
+    /**
+     * Order null and blank values of the most recently added key before all other values
+     */
+    public TableSort nullsFirst() {
+        lastKey().nullsFirst = true;
+        return this;
+    }
+
+    /**
+     * Order null and blank values of the most recently added key after all other values
+     */
+    public TableSort nullsLast() {
+        lastKey().nullsFirst = false;
+        return this;
+    }
+
+    /**
+     * Set the pool large tables are sorted on in parallel. Defaults to the common {@link ForkJoinPool}.
+     */
+    public TableSort setPool(final ForkJoinPool pool) {
+        Validate.notNull(pool, "Pool cannot be null");
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Set the number of rows of a file sorted in memory at a time by {@link #sort(File, boolean, File)}. Defaults to
+     * one million rows.
+     */
+    public TableSort setMaxRowsInMemory(final int maxRowsInMemory) {
+        Validate.isTrue(maxRowsInMemory > 0, "Max rows in memory must be positive");
+        this.maxRowsInMemory = maxRowsInMemory;
+        return this;
+    }
+
+    /**
+     * Set the directory sorted runs are spilled to. Defaults to the temporary directory of the local filesystem.
+     */
+    public TableSort setTempDirectory(final File tempDirectory) {
+        Validate.notNull(tempDirectory, "Temp directory cannot be null");
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * Sort the row ids of a table without reordering the table
+     *
+     * @return the ids of the rows of the table in sorted order
+     */
+    public int[] sortRowIds(final Table table) {
+        final int numOfRows = table.getNumOfRows();
+        final SortKey[] sortKeys = new SortKey[keys.size()];
+        for (int i = 0; i < sortKeys.length; ++i) {
+            sortKeys[i] = new SortKey(keys.get(i), numOfRows);
+        }
+        final int[] columnIds = resolve(table.getHeader());
+        if (numOfRows <= PARALLEL_THRESHOLD) {
+            extract(table, sortKeys, columnIds, 0, numOfRows);
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int from = 0; from < numOfRows; from += PARALLEL_THRESHOLD) {
+                final int start = from, end = Math.min(numOfRows, from + PARALLEL_THRESHOLD);
+                tasks.add(pool.submit(() -> extract(table, sortKeys, columnIds, start, end)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        int[] rowIds = new int[numOfRows];
+        for (int i = 0; i < numOfRows; ++i) {
+            rowIds[i] = i;
+        }
+        MergeSort sort = new MergeSort(rowIds, new int[numOfRows], sortKeys, 0, numOfRows);
+        if (numOfRows <= PARALLEL_THRESHOLD) {
+            sort.compute();
+        } else {
+            pool.invoke(sort);
+        }
+        return rowIds;
+    }
+
+    @Override
+    public Table apply(final Table table) {
+        return table.select(sortRowIds(table), null);
+    }
+
+    /**
+     * Sort a CSV file into another file. Runs of rows are read and sorted in memory and, if the source holds more rows
+     * than fit in memory, each sorted run is written to a temporary file and the runs are then merged into the target.
+     * Both files are read and written in the platform charset.
+     *
+     * @param source The file to sort
+     * @param hasHeader <code>true</code> if there is a header within the data, <code>false</code> if there isn't
+     * @param target The file to write the sorted rows to
+     */
+    public void sort(final File source, final boolean hasHeader, final File target) throws IOException {
+        List<File> runs = new ArrayList<>();
+        List<String> header;
+        try {
+            try (MappedCsvReader reader = MappedCsvReader.open(source, hasHeader)) {
+                header = reader.getHeader();
+                Table.Builder run = Table.builder();
+                while (reader.next()) {
+                    run.addRow(reader.getFields());
+                    if (run.getNumOfRows() == maxRowsInMemory) {
+                        runs.add(spill(run.setHeader(header).build()));
+                        run = Table.builder();
+                    }
+                }
+                if (runs.isEmpty()) {
+                    writeSorted(run.setHeader(header).build(), target);
+                    return;
+                }
+                if (run.getNumOfRows() > 0) {
+                    runs.add(spill(run.setHeader(header).build()));
+                }
+            }
+            merge(runs, header, target);
+        } finally {
+            for (File run : runs) {
+                run.delete();
+            }
+        }
+    }
+
+    private void writeSorted(final Table table, final File target) throws IOException {
+        try (CsvTableWriter.RowWriter writer = CsvTableWriter.open(new FileOutputStream(target))) {
+            if (table.hasHeader()) {
+                writer.writeHeader(table.getHeader());
+            }
+            for (int rowId : sortRowIds(table)) {
+                writer.writeRow(table.getRow(rowId));
+            }
+        }
+    }
+
+    private File spill(final Table table) throws IOException {
+        File directory = tempDirectory != null ? tempDirectory : new File(FileSystems.newInstance().getTempDirectory());
+        File run = File.createTempFile("sort", ".csv", directory);
+        try (CsvTableWriter.RowWriter writer = CsvTableWriter.open(new FileOutputStream(run), StandardCharsets.UTF_8)) {
+            for (int rowId : sortRowIds(table)) {
+                writer.writeRow(table.getRow(rowId));
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merge sorted runs into the target. The sort keys hold the key of the current row of each run, with the run as
+     * the slot, and ties are broken by run so rows keep the order they had in the source.
+     */
+    private void merge(final List<File> runs, final List<String> header, final File target) throws IOException {
+        int numOfRuns = runs.size();
+        int[] columnIds = resolve(header);
+        SortKey[] sortKeys = new SortKey[keys.size()];
+        for (int i = 0; i < sortKeys.length; ++i) {
+            sortKeys[i] = new SortKey(keys.get(i), numOfRuns);
+        }
+        MappedCsvReader[] readers = new MappedCsvReader[numOfRuns];
+        String[][] current = new String[numOfRuns][];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(numOfRuns, (a, b) -> {
+            int comparison = compare(sortKeys, a, b);
+            return comparison != 0 ? comparison : Integer.compare(a, b);
+        });
+        try (CsvTableWriter.RowWriter writer = CsvTableWriter.open(new FileOutputStream(target))) {
+            if (!header.isEmpty()) {
+                writer.writeHeader(header);
+            }
+            for (int run = 0; run < numOfRuns; ++run) {
+                readers[run] = MappedCsvReader.open(runs.get(run), false, StandardCharsets.UTF_8);
+                if (advance(readers[run], run, current, sortKeys, columnIds)) {
+                    heads.add(run);
+                }
+            }
+            while (!heads.isEmpty()) {
+                int run = heads.poll();
+                writer.writeRow(current[run]);
+                if (advance(readers[run], run, current, sortKeys, columnIds)) {
+                    heads.add(run);
+                }
+            }
+        } finally {
+            for (MappedCsvReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    private static boolean advance(final MappedCsvReader reader,
+            final int run,
+            final String[][] current,
+            final SortKey[] sortKeys,
+            final int[] columnIds) throws IOException {
+        if (!reader.next()) {
+            return false;
+        }
+        String[] fields = reader.getFields();
+        current[run] = fields;
+        for (int i = 0; i < sortKeys.length; ++i) {
+            sortKeys[i].setText(run, columnIds[i] < fields.length ? fields[columnIds[i]] : null);
+        }
+        return true;
+    }
+
+    private static void extract(final Table table,
+            final SortKey[] sortKeys,
+            final int[] columnIds,
+            final int from,
+            final int to) {
+        for (int i = 0; i < sortKeys.length; ++i) {
+            SortKey sortKey = sortKeys[i];
+            int columnId = columnIds[i];
+            ColumnType type = table instanceof ColumnarTable ? ((ColumnarTable) table).getColumnType(columnId) : null;
+            for (int rowId = from; rowId < to; ++rowId) {
+                if (type == ColumnType.INTEGER || type == ColumnType.LONG || type == ColumnType.DOUBLE) {
+                    if (!table.hasValue(rowId, columnId)) {
+                        sortKey.kinds[rowId] = MISSING;
+                    } else
+                        if (type == ColumnType.DOUBLE) {
+                            double number = table.getValueAsDouble(rowId, columnId);
+                            sortKey.setNumber(rowId, number, (long) number);
+                        } else {
+                            long number = table.getValueAsLong(rowId, columnId);
+                            sortKey.setNumber(rowId, number, number);
+                        }
+                } else
+                    if (type == ColumnType.DATE) {
+                        if (!table.hasValue(rowId, columnId)) {
+                            sortKey.kinds[rowId] = MISSING;
+                        } else {
+                            long day = table.getValueAsDate(rowId, columnId, null).toEpochDay();
+                            sortKey.setNumber(rowId, day, day);
+                        }
+                    } else {
+                        sortKey.setText(rowId, table.getValueAsString(rowId, columnId));
+                    }
+            }
+        }
+    }
+
+    private static int compare(final SortKey[] sortKeys, final int a, final int b) {
+        for (SortKey sortKey : sortKeys) {
+            int comparison = sortKey.compare(a, b);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private int[] resolve(final List<String> header) {
+        int[] columnIds = new int[keys.size()];
+        for (int i = 0; i < columnIds.length; ++i) {
+            Object column = keys.get(i).column;
+            if (column instanceof Integer) {
+                columnIds[i] = (Integer) column;
+            } else {
+                columnIds[i] = header.indexOf(column);
+                Validate.isTrue(columnIds[i] != Table.HEADER_NOT_FOUND, "No column with header '" + column
+                        + "' found");
+            }
+        }
+        return columnIds;
+    }
+
+    private Key lastKey() {
+        return keys.get(keys.size() - 1);
+    }
+
+    /**
+     * Return <code>true</code> if the text is a plain decimal number, optionally signed and with an exponent, which
+     * can be parsed without raising an exception
+     */
+    private static boolean isNumber(final String text) {
+        int i = 0, length = text.length();
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            ++i;
+        }
+        int digits = 0;
+        while (i < length && Character.isDigit(text.charAt(i))) {
+            ++i;
+            ++digits;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            ++i;
+            while (i < length && Character.isDigit(text.charAt(i))) {
+                ++i;
+                ++digits;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            ++i;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                ++i;
+            }
+            int exponent = i;
+            while (i < length && Character.isDigit(text.charAt(i))) {
+                ++i;
+            }
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isInteger(final String text) {
+        int start = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+        if (text.length() - start > 18) {
+            return false;
+        }
+        for (int i = start; i < text.length(); ++i) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A column to sort by and how to order it
+     */
+    private static final class Key {
+
+        private final Object column;
+        private boolean descending = false;
+        private boolean nullsFirst = true;
+
+        private Key(final Object column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * The pre-extracted values of a key column, one slot per row. Each slot holds whether the value is missing, a
+     * number or text, and a number is held both as a double and as a long so integers beyond the precision of a double
+     * still compare exactly.
+     */
+    private static final class SortKey {
+
+        private final boolean descending, nullsFirst;
+        private final byte[] kinds;
+        private final double[] numbers;
+        private final long[] integers;
+        private final String[] texts;
+
+        private SortKey(final Key key, final int size) {
+            this.descending = key.descending;
+            this.nullsFirst = key.nullsFirst;
+            this.kinds = new byte[size];
+            this.numbers = new double[size];
+            this.integers = new long[size];
+            this.texts = new String[size];
+        }
+
+        private void setNumber(final int slot, final double number, final long integer) {
+            kinds[slot] = NUMBER;
+            numbers[slot] = number;
+            integers[slot] = integer;
+            texts[slot] = null;
+        }
+
+        private void setText(final int slot, final String text) {
+            if (text == null || text.isEmpty()) {
+                kinds[slot] = MISSING;
+                texts[slot] = null;
+            } else
+                if (isNumber(text)) {
+                    if (isInteger(text)) {
+                        long integer = Long.parseLong(text);
+                        setNumber(slot, integer, integer);
+                    } else {
+                        double number = Double.parseDouble(text);
+                        setNumber(slot, number, (long) number);
+                    }
+                } else {
+                    kinds[slot] = TEXT;
+                    texts[slot] = text;
+                }
+        }
+
+        private int compare(final int a, final int b) {
+            byte kindA = kinds[a], kindB = kinds[b];
+            if (kindA == MISSING || kindB == MISSING) {
+                if (kindA == kindB) {
+                    return 0;
+                }
+                return (kindA == MISSING) == nullsFirst ? -1 : 1;
+            }
+            int comparison;
+            if (kindA != kindB) {
+                comparison = kindA == NUMBER ? -1 : 1;
+            } else
+                if (kindA == NUMBER) {
+                    comparison = Double.compare(numbers[a], numbers[b]);
+                    if (comparison == 0) {
+                        comparison = Long.compare(integers[a], integers[b]);
+                    }
+                } else {
+                    comparison = texts[a].compareTo(texts[b]);
+                }
+            return descending ? -comparison : comparison;
+        }
+    }
+
+    /**
+     * Stable merge sort of row ids by their sort keys. Ranges larger than the parallel threshold sort each half as a
+     * separate task.
+     */
+    private static final class MergeSort extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] rowIds, buffer;
+        private final SortKey[] sortKeys;
+        private final int from, to;
+
+        private MergeSort(final int[] rowIds, final int[] buffer, final SortKey[] sortKeys, final int from, final int to) {
+            this.rowIds = rowIds;
+            this.buffer = buffer;
+            this.sortKeys = sortKeys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                sort(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MergeSort(rowIds, buffer, sortKeys, from, mid), new MergeSort(rowIds,
+                        buffer,
+                        sortKeys,
+                        mid,
+                        to));
+                merge(from, mid, to);
+            }
+        }
+
+        private void sort(final int start, final int end) {
+            if (end - start <= INSERTION_SORT_THRESHOLD) {
+                for (int i = start + 1; i < end; ++i) {
+                    int rowId = rowIds[i], j = i - 1;
+                    while (j >= start && compare(sortKeys, rowIds[j], rowId) > 0) {
+                        rowIds[j + 1] = rowIds[j];
+                        --j;
+                    }
+                    rowIds[j + 1] = rowId;
+                }
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            sort(start, mid);
+            sort(mid, end);
+            merge(start, mid, end);
+        }
+
+        private void merge(final int start, final int mid, final int end) {
+            if (compare(sortKeys, rowIds[mid - 1], rowIds[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(rowIds, start, buffer, start, end - start);
+            int left = start, right = mid, out = start;
+            while (left < mid && right < end) {
+                rowIds[out++] = compare(sortKeys, buffer[right], buffer[left]) < 0 ? buffer[right++] : buffer[left++];
+            }
+            while (left < mid) {
+                rowIds[out++] = buffer[left++];
+            }
+            while (right < end) {
+                rowIds[out++] = buffer[right++];
+            }
+        }
+    }
+}
@@ -22,7 +22,7 @@ public class TableToMapTransform implements TableTransform<Map<String, String>>
 
     @Override
     public Map<String, String> apply(final Table table) {
-        Map<String, String> map = new HashMap<>();
+        Map<String, String> map = new HashMap<>(Math.max(16, (int) (table.getNumOfRows() / 0.75f) + 1));
         for (Row row : table.rowIterator()) {
             map.put(row.getValueAsString(keyIndex), row.getValueAsString(valueIndex));
         }
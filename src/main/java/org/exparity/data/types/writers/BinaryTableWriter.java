@@ -0,0 +1,41 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.writers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.exparity.data.types.BinaryTableFormat;
+import org.exparity.data.types.Table;
+import org.exparity.data.types.Table.TableWriter;
+
+/**
+ * Writes the contents of a {@link Table} in the compact columnar {@link BinaryTableFormat}
+ *
+ * @author Stewart Bissett
+ */
+public class BinaryTableWriter implements TableWriter {
+
+    private final boolean compress;
+
+    /**
+     * Create a writer which writes uncompressed column blocks
+     */
+    public BinaryTableWriter() {
+        this(false);
+    }
+
+    /**
+     * @param compress <code>true</code> to deflate each column block
+     */
+    public BinaryTableWriter(final boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public void write(final Table table, final OutputStream target) throws IOException {
+        BinaryTableFormat.write(table, target, compress);
+    }
+}
@@ -4,10 +4,20 @@
 
 package org.exparity.data.types.writers;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
 
-import org.exparity.data.CSV;
+import org.apache.commons.lang.Validate;
+import org.exparity.data.types.Array;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.Scalar;
 import org.exparity.data.types.Table;
 import org.exparity.data.types.Table.TableWriter;
 
@@ -18,9 +28,139 @@ import org.exparity.data.types.Table.TableWriter;
  */
 public class CsvTableWriter implements TableWriter {
 
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final char QUOTE = '"', SEPARATOR = ',', LINE_END = '\n';
+
+    /**
+     * Writes rows in CSV format one at a time so data can be exported without first building a {@link Table}. Every
+     * field is quoted and quotes within a field are doubled. Output is buffered and written in the charset the writer
+     * was opened with.
+     */
+    public static class RowWriter implements Closeable, Flushable {
+
+        private final Writer out;
+
+        private RowWriter(final OutputStream target, final Charset charset, final int bufferSize) {
+            this.out = new BufferedWriter(new OutputStreamWriter(target, charset), bufferSize);
+        }
+
+        public RowWriter writeHeader(final Collection<String> header) throws IOException {
+            boolean first = true;
+            for (String value : header) {
+                if (!first) {
+                    out.write(SEPARATOR);
+                }
+                writeField(value);
+                first = false;
+            }
+            out.write(LINE_END);
+            return this;
+        }
+
+        public RowWriter writeRow(final Array row) throws IOException {
+            for (int i = 0; i < row.getNumOfValues(); ++i) {
+                if (i > 0) {
+                    out.write(SEPARATOR);
+                }
+                Scalar value = row.getValue(i);
+                writeField(value != null ? value.getValueAsString() : null);
+            }
+            out.write(LINE_END);
+            return this;
+        }
+
+        public RowWriter writeRow(final String... row) throws IOException {
+            for (int i = 0; i < row.length; ++i) {
+                if (i > 0) {
+                    out.write(SEPARATOR);
+                }
+                writeField(row[i]);
+            }
+            out.write(LINE_END);
+            return this;
+        }
+
+        public RowWriter writeRows(final Iterable<? extends Array> rows) throws IOException {
+            for (Array row : rows) {
+                writeRow(row);
+            }
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Flush any buffered rows and close the underlying stream
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void writeField(final String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            out.write(QUOTE);
+            int start = 0;
+            for (int i = value.indexOf(QUOTE); i >= 0; i = value.indexOf(QUOTE, i + 1)) {
+                out.write(value, start, i + 1 - start);
+                out.write(QUOTE);
+                start = i + 1;
+            }
+            out.write(value, start, value.length() - start);
+            out.write(QUOTE);
+        }
+    }
+
+    /**
+     * Open a {@link RowWriter} which writes to the target in the platform charset
+     */
+    public static RowWriter open(final OutputStream target) {
+        return open(target, Charset.defaultCharset());
+    }
+
+    /**
+     * Open a {@link RowWriter} which writes to the target in the supplied charset
+     */
+    public static RowWriter open(final OutputStream target, final Charset charset) {
+        return open(target, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Open a {@link RowWriter} which writes to the target in the supplied charset through a buffer of the supplied size
+     */
+    public static RowWriter open(final OutputStream target, final Charset charset, final int bufferSize) {
+        Validate.notNull(target, "Target cannot be null");
+        Validate.notNull(charset, "Charset cannot be null");
+        Validate.isTrue(bufferSize > 0, "Buffer size must be positive");
+        return new RowWriter(target, charset, bufferSize);
+    }
+
+    private final Charset charset;
+
+    public CsvTableWriter() {
+        this(Charset.defaultCharset());
+    }
+
+    public CsvTableWriter(final Charset charset) {
+        Validate.notNull(charset, "Charset cannot be null");
+        this.charset = charset;
+    }
+
     @Override
     public void write(final Table table, final OutputStream target) throws IOException {
-        CSV.of(table).writeTo(target);
+        try (RowWriter writer = open(target, charset)) {
+            if (table.hasHeader()) {
+                writer.writeHeader(table.getHeader());
+            }
+            for (Row row : table.rowIterator()) {
+                writer.writeRow(row);
+            }
+        }
     }
 
 }
@@ -0,0 +1,386 @@
+/*
+ *
+ */
+
+package org.exparity.data.xml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+import org.exparity.io.TextDataSource;
+
+/**
+ * Evaluates several simple XPath expressions in a single StAX pass over a document without building a DOM. Each
+ * expression is compiled into a list of steps and, as the document is read, every open element records which steps
+ * of each expression it has matched so far, so the cost of a pass grows with the size of the document and the number
+ * of expressions but the memory used only with the depth of the document and the size of the results.
+ * <p>
+ * The supported subset is an absolute path of element names or <code>*</code> separated by <code>/</code> for a child
+ * or <code>//</code> for a descendant. Each step may have attribute predicates, either <code>[@name]</code> or
+ * <code>[@name='value']</code>. The path may end in <code>text()</code> to select the text directly within the
+ * matched elements or in <code>@name</code> to select an attribute, and either may follow <code>//</code> to select
+ * the text or attributes of the matched elements and all of their descendants. Names without a prefix are matched
+ * against the local name of an element or attribute. The results of each expression are the same as those of an
+ * {@link org.exparity.data.xml.selectors.XPathStringSelector}, being the text content of each selected node in
+ * document order.
+ *
+ * <pre>
+ * StreamingXPath query = StreamingXPath.compile("/feed/item[@type='bond']/isin/text()", "//price/@currency");
+ * Map&lt;String, List&lt;String&gt;&gt; results = query.evaluate(FileSystemFile.open("feed.xml"));
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class StreamingXPath {
+
+    private enum Target {
+        ELEMENT, TEXT, ATTRIBUTE
+    }
+
+    /**
+     * Compile a set of expressions to evaluate together
+     *
+     * @throws IllegalArgumentException if an expression is not within the supported subset
+     */
+    public static StreamingXPath compile(final String... expressions) {
+        Validate.notEmpty(expressions, "Expressions cannot be empty");
+        Path[] paths = new Path[expressions.length];
+        for (int i = 0; i < expressions.length; ++i) {
+            paths[i] = Path.parse(expressions[i]);
+        }
+        return new StreamingXPath(paths);
+    }
+
+    private final Path[] paths;
+
+    private StreamingXPath(final Path[] paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Evaluate the expressions against a document
+     *
+     * @return the results of each expression, keyed by the expression in the order they were compiled
+     */
+    public Map<String, List<String>> evaluate(final TextDataSource source) {
+        return evaluate(source.getStream());
+    }
+
+    /**
+     * Evaluate the expressions against a document. The input stream is read to the end of the document but not
+     * closed.
+     *
+     * @return the results of each expression, keyed by the expression in the order they were compiled
+     */
+    public Map<String, List<String>> evaluate(final InputStream source) {
+        Validate.notNull(source, "Input stream cannot be null");
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(source);
+            return evaluate(reader);
+        } catch (XMLStreamException e) {
+            throw new BadFormatException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Ignore. The document has been read or has already failed
+                }
+            }
+        }
+    }
+
+    private Map<String, List<String>> evaluate(final XMLStreamReader reader) throws XMLStreamException {
+        List<List<String>> results = new ArrayList<>(paths.length);
+        for (int i = 0; i < paths.length; ++i) {
+            results.add(new ArrayList<>());
+        }
+        List<BitSet[]> frames = new ArrayList<>();
+        List<Capture> captures = new ArrayList<>();
+        BitSet[] root = new BitSet[paths.length];
+        for (int i = 0; i < paths.length; ++i) {
+            root[i] = new BitSet();
+            root[i].set(0);
+        }
+        frames.add(root);
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    BitSet[] parent = frames.get(frames.size() - 1);
+                    BitSet[] frame = new BitSet[paths.length];
+                    for (int i = 0; i < paths.length; ++i) {
+                        Path path = paths[i];
+                        frame[i] = path.advance(parent[i], reader);
+                        if (frame[i].get(path.steps.length)) {
+                            if (path.target == Target.ELEMENT) {
+                                results.get(i).add(null);
+                                captures.add(new Capture(results.get(i), frames.size()));
+                            } else
+                                if (path.target == Target.ATTRIBUTE) {
+                                    String value = findAttribute(reader, path.attribute);
+                                    if (value != null) {
+                                        results.get(i).add(value);
+                                    }
+                                }
+                        }
+                    }
+                    frames.add(frame);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    frames.remove(frames.size() - 1);
+                    while (!captures.isEmpty() && captures.get(captures.size() - 1).depth == frames.size()) {
+                        captures.remove(captures.size() - 1).finish();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    String text = reader.getText();
+                    for (Capture capture : captures) {
+                        capture.text.append(text);
+                    }
+                    BitSet[] current = frames.get(frames.size() - 1);
+                    for (int i = 0; i < paths.length && frames.size() > 1; ++i) {
+                        if (paths[i].target == Target.TEXT && current[i].get(paths[i].steps.length)) {
+                            results.get(i).add(text);
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Map<String, List<String>> evaluated = new LinkedHashMap<>();
+        for (int i = 0; i < paths.length; ++i) {
+            evaluated.put(paths[i].expression, Collections.unmodifiableList(results.get(i)));
+        }
+        return evaluated;
+    }
+
+    private static String findAttribute(final XMLStreamReader reader, final String name) {
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            if (matches(name, reader.getAttributePrefix(i), reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(final String name, final String prefix, final String localName) {
+        if (StringUtils.isEmpty(prefix) || name.indexOf(':') < 0) {
+            return name.equals(localName);
+        }
+        return name.equals(prefix + ":" + localName);
+    }
+
+    /**
+     * The text of an element selected by an expression, gathered until the element ends
+     */
+    private static final class Capture {
+
+        private final List<String> results;
+        private final int index;
+        private final int depth;
+        private final StringBuilder text = new StringBuilder();
+
+        private Capture(final List<String> results, final int depth) {
+            this.results = results;
+            this.index = results.size() - 1;
+            this.depth = depth;
+        }
+
+        private void finish() {
+            results.set(index, text.toString());
+        }
+    }
+
+    /**
+     * A compiled expression
+     */
+    private static final class Path {
+
+        private final String expression;
+        private final Step[] steps;
+        private final Target target;
+        private final String attribute;
+        private final boolean orSelf;
+
+        private Path(final String expression,
+                final Step[] steps,
+                final Target target,
+                final String attribute,
+                final boolean orSelf) {
+            this.expression = expression;
+            this.steps = steps;
+            this.target = target;
+            this.attribute = attribute;
+            this.orSelf = orSelf;
+        }
+
+        /**
+         * Return the steps matched by an element given the steps matched by its parent. A step which selects
+         * descendants stays matched for every element beneath the element which reached it. If the path ends in
+         * <code>//text()</code> or <code>//@name</code> the last step stays matched in the same way, so the text or
+         * attributes of the element which completed the path and of every element beneath it are selected.
+         */
+        private BitSet advance(final BitSet parent, final XMLStreamReader reader) {
+            BitSet matched = new BitSet(steps.length + 1);
+            for (int s = parent.nextSetBit(0); s >= 0 && s < steps.length; s = parent.nextSetBit(s + 1)) {
+                Step step = steps[s];
+                if (step.descendant) {
+                    matched.set(s);
+                }
+                if (step.matches(reader)) {
+                    matched.set(s + 1);
+                }
+            }
+            if (orSelf && parent.get(steps.length)) {
+                matched.set(steps.length);
+            }
+            return matched;
+        }
+
+        private static Path parse(final String expression) {
+            Validate.notNull(expression, "Expression cannot be null");
+            Parser parser = new Parser(expression);
+            List<Step> steps = new ArrayList<>();
+            parser.require(parser.peek('/'));
+            while (parser.hasMore()) {
+                parser.require(parser.accept('/'));
+                boolean descendant = parser.accept('/');
+                if (parser.accept("text()")) {
+                    parser.require(!parser.hasMore());
+                    return new Path(expression, steps.toArray(new Step[steps.size()]), Target.TEXT, null, descendant);
+                } else
+                    if (parser.accept('@')) {
+                        String attribute = parser.name();
+                        parser.require(!parser.hasMore());
+                        return new Path(expression, steps.toArray(new Step[steps.size()]), Target.ATTRIBUTE,
+                                attribute, descendant);
+                    }
+                Step step = new Step(parser.name(), descendant);
+                while (parser.accept('[')) {
+                    parser.require(parser.accept('@'));
+                    String attribute = parser.name();
+                    String value = parser.accept('=') ? parser.literal() : null;
+                    parser.require(parser.accept(']'));
+                    step.predicates.add(new String[] { attribute, value });
+                }
+                steps.add(step);
+            }
+            return new Path(expression, steps.toArray(new Step[steps.size()]), Target.ELEMENT, null, false);
+        }
+    }
+
+    /**
+     * A single step of an expression and its attribute predicates
+     */
+    private static final class Step {
+
+        private final String name;
+        private final boolean descendant;
+        private final List<String[]> predicates = new ArrayList<>();
+
+        private Step(final String name, final boolean descendant) {
+            this.name = name;
+            this.descendant = descendant;
+        }
+
+        private boolean matches(final XMLStreamReader reader) {
+            if (!"*".equals(name) && !StreamingXPath.matches(name, reader.getPrefix(), reader.getLocalName())) {
+                return false;
+            }
+            for (String[] predicate : predicates) {
+                String value = findAttribute(reader, predicate[0]);
+                if (value == null || predicate[1] != null && !predicate[1].equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads the tokens of an expression
+     */
+    private static final class Parser {
+
+        private final String expression;
+        private int position;
+
+        private Parser(final String expression) {
+            this.expression = expression;
+        }
+
+        private boolean hasMore() {
+            return position < expression.length();
+        }
+
+        private boolean peek(final char c) {
+            return hasMore() && expression.charAt(position) == c;
+        }
+
+        private boolean accept(final char c) {
+            if (peek(c)) {
+                ++position;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean accept(final String token) {
+            if (expression.startsWith(token, position)) {
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private String name() {
+            int start = position;
+            while (hasMore() && "/[]@='\" ".indexOf(expression.charAt(position)) < 0) {
+                ++position;
+            }
+            require(position > start);
+            return expression.substring(start, position);
+        }
+
+        private String literal() {
+            require(peek('\'') || peek('"'));
+            char quote = expression.charAt(position++);
+            int end = expression.indexOf(quote, position);
+            require(end >= 0);
+            String literal = expression.substring(position, end);
+            position = end + 1;
+            return literal;
+        }
+
+        private void require(final boolean condition) {
+            if (!condition) {
+                throw new IllegalArgumentException("Unsupported xpath '" + expression
+                        + "' at position "
+                        + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ *
+ */
+
+package org.exparity.data.xml;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.types.Pair;
+
+/**
+ * A cache of compiled XPath expressions. Looking up an {@link XPathFactory}, creating an {@link XPath} and compiling
+ * an expression each cost more than evaluating a simple expression against a small document, so a cache keeps a
+ * single {@link XPath} for each thread and the most recently used expressions it has compiled, keyed by the
+ * expression and its namespace context.
+ * <p>
+ * Neither {@link XPath} nor {@link XPathExpression} is safe to share between threads, so each thread compiles and
+ * holds its own copy of an expression. A cache is safe to use from several threads but an expression it returns must
+ * only be evaluated by the thread which asked for it.
+ *
+ * <pre>
+ * XPathExpression expression = XPathCache.getDefault().compile("//item/title");
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class XPathCache {
+
+    /**
+     * The default maximum number of expressions held for each thread
+     */
+    public static final int DEFAULT_MAX_EXPRESSIONS = 256;
+
+    private static final XPathCache DEFAULT = new XPathCache(DEFAULT_MAX_EXPRESSIONS);
+
+    /**
+     * Return the cache shared by {@link org.exparity.data.XML} and the XPath selectors and matchers
+     */
+    public static XPathCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a cache which holds up to the supplied number of expressions for each thread
+     */
+    public static XPathCache newCache(final int maxExpressions) {
+        Validate.isTrue(maxExpressions > 0, "Maximum expressions must be positive");
+        return new XPathCache(maxExpressions);
+    }
+
+    /**
+     * Create a namespace context which maps each prefix to a namespace URI. Contexts created from equal mappings are
+     * equal so expressions compiled with them share an entry in the cache. The pairs are copied so later changes to
+     * the array do not affect the context.
+     *
+     * @param namespaces pairs of prefix and namespace URI
+     */
+    @SafeVarargs
+    public static NamespaceContext namespaces(final Pair<String, String>... namespaces) {
+        List<Pair<String, String>> copy = new ArrayList<>(namespaces.length);
+        for (Pair<String, String> namespace : namespaces) {
+            copy.add(namespace);
+        }
+        return new PairNamespaceContext(copy);
+    }
+
+    private final int maxExpressions;
+    private final ThreadLocal<ThreadCache> caches = new ThreadLocal<ThreadCache>() {
+
+        @Override
+        protected ThreadCache initialValue() {
+            return new ThreadCache();
+        }
+    };
+
+    private XPathCache(final int maxExpressions) {
+        this.maxExpressions = maxExpressions;
+    }
+
+    /**
+     * Return the compiled form of an expression for the current thread
+     */
+    public XPathExpression compile(final String xpath) throws XPathExpressionException {
+        return compile(xpath, (NamespaceContext) null);
+    }
+
+    /**
+     * Return the compiled form of an expression for the current thread, resolving prefixes against the supplied pairs
+     * of prefix and namespace URI
+     */
+    @SafeVarargs
+    public final XPathExpression compile(final String xpath, final Pair<String, String>... namespaces)
+            throws XPathExpressionException {
+        if (namespaces == null || namespaces.length == 0) {
+            return compile(xpath, (NamespaceContext) null);
+        }
+        List<Pair<String, String>> copy = new ArrayList<>(namespaces.length);
+        for (Pair<String, String> namespace : namespaces) {
+            copy.add(namespace);
+        }
+        return compile(xpath, new PairNamespaceContext(copy));
+    }
+
+    /**
+     * Return the compiled form of an expression for the current thread, resolving prefixes against the supplied
+     * namespace context. The context is part of the key so it should implement equals and hashCode if it is not
+     * reused.
+     *
+     * @param context the namespace context or null if the expression uses no prefixes
+     */
+    public XPathExpression compile(final String xpath, final NamespaceContext context)
+            throws XPathExpressionException {
+        Validate.notNull(xpath, "XPath cannot be null");
+        return caches.get().compile(new Key(xpath, context));
+    }
+
+    /**
+     * @return the number of expressions held for the current thread
+     */
+    public int size() {
+        return caches.get().expressions.size();
+    }
+
+    /**
+     * The {@link XPath} and compiled expressions of a single thread
+     */
+    private final class ThreadCache {
+
+        private final XPath xpath = XPathFactory.newInstance().newXPath();
+        private final Map<Key, XPathExpression> expressions = new LinkedHashMap<Key, XPathExpression>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, XPathExpression> eldest) {
+                return size() > maxExpressions;
+            }
+        };
+
+        private XPathExpression compile(final Key key) throws XPathExpressionException {
+            XPathExpression expression = expressions.get(key);
+            if (expression == null) {
+                xpath.reset();
+                if (key.context != null) {
+                    xpath.setNamespaceContext(key.context);
+                }
+                expression = xpath.compile(key.xpath);
+                expressions.put(key, expression);
+            }
+            return expression;
+        }
+    }
+
+    private static final class Key {
+
+        private final String xpath;
+        private final NamespaceContext context;
+
+        private Key(final String xpath, final NamespaceContext context) {
+            this.xpath = xpath;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key rhs = (Key) o;
+            return xpath.equals(rhs.xpath) && (context == null ? rhs.context == null : context.equals(rhs.context));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * xpath.hashCode() + (context == null ? 0 : context.hashCode());
+        }
+    }
+
+    private static final class PairNamespaceContext implements NamespaceContext {
+
+        private final List<Pair<String, String>> namespaces;
+
+        private PairNamespaceContext(final List<Pair<String, String>> namespaces) {
+            this.namespaces = namespaces;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(final String namespaceURI) {
+            List<String> prefixes = new ArrayList<>();
+            for (Pair<String, String> namespace : namespaces) {
+                if (namespace.getValue2().equals(namespaceURI)) {
+                    prefixes.add(namespace.getValue1());
+                }
+            }
+            return prefixes.iterator();
+        }
+
+        @Override
+        public String getPrefix(final String namespaceURI) {
+            for (Pair<String, String> namespace : namespaces) {
+                if (namespace.getValue2().equals(namespaceURI)) {
+                    return namespace.getValue1();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String getNamespaceURI(final String prefix) {
+            for (Pair<String, String> namespace : namespaces) {
+                if (namespace.getValue1().equals(prefix)) {
+                    return namespace.getValue2();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof PairNamespaceContext && namespaces.equals(((PairNamespaceContext) o).namespaces);
+        }
+
+        @Override
+        public int hashCode() {
+            return namespaces.hashCode();
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package org.exparity.data.xml;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 
+import org.apache.commons.io.IOUtils;
 import org.exparity.data.XML;
 
 /**
@@ -16,4 +21,16 @@ public interface XmlParser {
      * Parse a XML file from an {@link InputStream}
      */
     public XML parse(final InputStream is);
-}
\ No newline at end of file
+
+    /**
+     * Parse a XML file from a {@link Reader}. Parsers which can read characters directly should override this rather
+     * than have the characters encoded and parsed from an {@link InputStream}.
+     */
+    public default XML parse(final Reader reader) {
+        try {
+            return parse(new ByteArrayInputStream(IOUtils.toString(reader).getBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
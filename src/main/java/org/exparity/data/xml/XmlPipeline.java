@@ -0,0 +1,453 @@
+/*
+ *
+ */
+
+package org.exparity.data.xml;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang.Validate;
+import org.exparity.data.XML;
+import org.exparity.data.xml.parser.XmlParserBuilder;
+import org.exparity.io.TextDataSource;
+
+/**
+ * Parses, validates, transforms and unmarshalls a batch of documents on a pool of worker threads. Each document is
+ * passed through the stages which have been set, in the order {@link Stage#PARSE}, {@link Stage#VALIDATE},
+ * {@link Stage#TRANSFORM} and {@link Stage#UNMARSHAL}, and the outcome of every document is returned as a
+ * {@link Result} holding the value, the validation result or the failure and the time spent in each stage.
+ * <p>
+ * Stages are set using a {@link Supplier} which is called once by each worker thread, so each thread reuses its own
+ * parser, validator, transformer and marshaller for every document it processes and they need not be thread safe. A
+ * supplier may return the same instance to every thread if the instance is thread safe.
+ * <p>
+ * Documents are read from the source only as fast as results are consumed: no more than the capacity of the pipeline
+ * are being processed or waiting to be returned at any time. Results are returned in the order of the source unless
+ * {@link #setOrdered(boolean)} is <code>false</code>, in which case they are returned as they complete and a slow
+ * document does not hold up those behind it.
+ *
+ * <pre>
+ * XmlPipeline&lt;Order&gt; pipeline = XmlPipeline.newPipeline()
+ *         .setValidator(() -&gt; new SchemaValidator(JcpFile.open("order.xsd").getStream()))
+ *         .setMarshaller(() -&gt; new JaxbMarshaller&lt;Order&gt;(Order.class))
+ *         .setThreads(8);
+ * try (Stream&lt;XmlPipeline.Result&lt;Order&gt;&gt; results = pipeline.process(messages)) {
+ *     results.filter(XmlPipeline.Result::isSuccess).map(XmlPipeline.Result::getValue).forEach(orders::add);
+ * }
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class XmlPipeline<T> {
+
+    /**
+     * The stages of a pipeline in the order they are applied
+     */
+    public enum Stage {
+        PARSE, VALIDATE, TRANSFORM, UNMARSHAL
+    }
+
+    /**
+     * The outcome of passing a single document through a pipeline
+     */
+    public static class Result<T> {
+
+        private final long index;
+        private final TextDataSource source;
+        private final Map<Stage, Long> times = new EnumMap<>(Stage.class);
+        private T value;
+        private ValidationResult validation;
+        private Exception failure;
+
+        private Result(final long index, final TextDataSource source) {
+            this.index = index;
+            this.source = source;
+        }
+
+        /**
+         * @return the position of the document within the source, counting from zero
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        public TextDataSource getSource() {
+            return source;
+        }
+
+        /**
+         * @return the output of the last stage or null if the document failed or was invalid
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return the result of validating the document or null if there is no validator or the document failed
+         *         before it was validated
+         */
+        public ValidationResult getValidation() {
+            return validation;
+        }
+
+        /**
+         * @return the exception thrown by the stage at which the document failed or null if no stage failed
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return <code>true</code> if the document passed through every stage, including validation
+         */
+        public boolean isSuccess() {
+            return failure == null && (validation == null || validation.isValid());
+        }
+
+        /**
+         * @return the time in nanoseconds spent in a stage or zero if the document did not reach the stage
+         */
+        public long getTime(final Stage stage) {
+            Long time = times.get(stage);
+            return time != null ? time : 0;
+        }
+
+        /**
+         * @return the time in nanoseconds spent in every stage
+         */
+        public long getTotalTime() {
+            long total = 0;
+            for (long time : times.values()) {
+                total += time;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Create a pipeline which parses each document with a parser from {@link XmlParserBuilder}, using one worker
+     * thread for each processor
+     */
+    public static XmlPipeline<XML> newPipeline() {
+        return new XmlPipeline<>();
+    }
+
+    private Supplier<? extends XmlParser> parser = () -> XmlParserBuilder.newParserFactory().build();
+    private Supplier<? extends XmlValidator> validator;
+    private Supplier<? extends XmlTransformer<XML>> transformer;
+    private Supplier<? extends XmlMarshaller<T>> marshaller;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int capacity;
+    private boolean ordered = true;
+
+    private XmlPipeline() {}
+
+    public XmlPipeline<T> setParser(final Supplier<? extends XmlParser> parser) {
+        Validate.notNull(parser, "Parser cannot be null");
+        this.parser = parser;
+        return this;
+    }
+
+    /**
+     * Validate each document once parsed. Documents which are not valid are not passed to the later stages.
+     */
+    public XmlPipeline<T> setValidator(final Supplier<? extends XmlValidator> validator) {
+        this.validator = validator;
+        return this;
+    }
+
+    /**
+     * Transform each document once parsed and validated, for example with a
+     * {@link org.exparity.data.xml.transformers.StylesheetTransformer}
+     */
+    public XmlPipeline<T> setTransformer(final Supplier<? extends XmlTransformer<XML>> transformer) {
+        this.transformer = transformer;
+        return this;
+    }
+
+    /**
+     * Unmarshall each document once transformed, returning a pipeline whose results are the unmarshalled objects and
+     * which shares the rest of the configuration of this pipeline
+     */
+    public <R> XmlPipeline<R> setMarshaller(final Supplier<? extends XmlMarshaller<R>> marshaller) {
+        Validate.notNull(marshaller, "Marshaller cannot be null");
+        XmlPipeline<R> pipeline = new XmlPipeline<>();
+        pipeline.parser = parser;
+        pipeline.validator = validator;
+        pipeline.transformer = transformer;
+        pipeline.marshaller = marshaller;
+        pipeline.threads = threads;
+        pipeline.capacity = capacity;
+        pipeline.ordered = ordered;
+        return pipeline;
+    }
+
+    /**
+     * Set the number of worker threads. Defaults to the number of processors.
+     */
+    public XmlPipeline<T> setThreads(final int threads) {
+        Validate.isTrue(threads > 0, "Threads must be positive");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of documents which are being processed or are waiting to be returned. Defaults to twice
+     * the number of threads.
+     */
+    public XmlPipeline<T> setCapacity(final int capacity) {
+        Validate.isTrue(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Return results in the order of the source, or as they complete if <code>false</code>. Defaults to
+     * <code>true</code>.
+     */
+    public XmlPipeline<T> setOrdered(final boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Process a batch of documents. See {@link #process(Iterator)}.
+     */
+    public Stream<Result<T>> process(final Iterable<? extends TextDataSource> sources) {
+        Validate.notNull(sources, "Sources cannot be null");
+        return process(sources.iterator());
+    }
+
+    /**
+     * Process a batch of documents. See {@link #process(Iterator)}. The source stream is closed when the stream of
+     * results is closed.
+     */
+    public Stream<Result<T>> process(final Stream<? extends TextDataSource> sources) {
+        Validate.notNull(sources, "Sources cannot be null");
+        return process(sources.iterator()).onClose(sources::close);
+    }
+
+    /**
+     * Process a batch of documents, returning a lazily evaluated stream of their results. Documents are read from the
+     * source as results are consumed. The worker threads are stopped once every result has been returned or when the
+     * stream is closed, so a stream which is not read to the end must be closed.
+     */
+    public Stream<Result<T>> process(final Iterator<? extends TextDataSource> sources) {
+        Validate.notNull(sources, "Sources cannot be null");
+        Run run = ordered ? new OrderedRun(sources) : new UnorderedRun(sources);
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(run, Spliterator.NONNULL
+                        | (ordered ? Spliterator.ORDERED : 0)), false)
+                .onClose(run::close);
+    }
+
+    /**
+     * Pass a single document through the stages of the pipeline on the current thread
+     */
+    @SuppressWarnings("unchecked")
+    private Result<T> process(final long index, final TextDataSource source, final Stages stages) {
+        Result<T> result = new Result<>(index, source);
+        Stage stage = Stage.PARSE;
+        long start = System.nanoTime();
+        try {
+            XML xml = stages.parser.parse(source.getStream());
+            start = time(result, stage, start);
+            if (stages.validator != null) {
+                stage = Stage.VALIDATE;
+                result.validation = stages.validator.validate(xml);
+                start = time(result, stage, start);
+                if (!result.validation.isValid()) {
+                    return result;
+                }
+            }
+            if (stages.transformer != null) {
+                stage = Stage.TRANSFORM;
+                xml = stages.transformer.transform(xml);
+                start = time(result, stage, start);
+            }
+            if (stages.marshaller != null) {
+                stage = Stage.UNMARSHAL;
+                result.value = stages.marshaller.unmarshal(xml);
+                time(result, stage, start);
+            } else {
+                result.value = (T) xml;
+            }
+        } catch (Exception e) {
+            time(result, stage, start);
+            result.failure = e;
+        }
+        return result;
+    }
+
+    private static long time(final Result<?> result, final Stage stage, final long start) {
+        long end = System.nanoTime();
+        result.times.put(stage, end - start);
+        return end;
+    }
+
+    /**
+     * The instances of each stage used by a single worker thread
+     */
+    private final class Stages {
+
+        private final XmlParser parser = XmlPipeline.this.parser.get();
+        private final XmlValidator validator = XmlPipeline.this.validator != null
+                ? XmlPipeline.this.validator.get()
+                : null;
+        private final XmlTransformer<XML> transformer = XmlPipeline.this.transformer != null
+                ? XmlPipeline.this.transformer.get()
+                : null;
+        private final XmlMarshaller<T> marshaller = XmlPipeline.this.marshaller != null
+                ? XmlPipeline.this.marshaller.get()
+                : null;
+    }
+
+    /**
+     * A single pass of a batch of documents through the pipeline, which submits documents to its own pool of worker
+     * threads while fewer than the capacity are outstanding
+     */
+    private abstract class Run implements Iterator<Result<T>> {
+
+        private final Iterator<? extends TextDataSource> sources;
+        private final ThreadLocal<Stages> stages = ThreadLocal.withInitial(Stages::new);
+        protected final ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "xml-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        protected final int capacity = XmlPipeline.this.capacity > 0 ? XmlPipeline.this.capacity : 2 * threads;
+        private long index;
+
+        private Run(final Iterator<? extends TextDataSource> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (executor.isShutdown()) {
+                return false;
+            }
+            fill();
+            if (outstanding() == 0) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Result<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Result<T> result = take().get();
+                fill();
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                close();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        /**
+         * Stop the worker threads, abandoning any documents still outstanding
+         */
+        private void close() {
+            executor.shutdownNow();
+        }
+
+        private void fill() {
+            while (outstanding() < capacity && sources.hasNext()) {
+                TextDataSource source = sources.next();
+                long position = index++;
+                submit(() -> process(position, source, stages.get()));
+            }
+        }
+
+        protected abstract int outstanding();
+
+        protected abstract void submit(final Callable<Result<T>> task);
+
+        protected abstract Future<Result<T>> take() throws InterruptedException;
+    }
+
+    /**
+     * Returns results in the order of the source
+     */
+    private final class OrderedRun extends Run {
+
+        private final Deque<Future<Result<T>>> pending = new ArrayDeque<>();
+
+        private OrderedRun(final Iterator<? extends TextDataSource> sources) {
+            super(sources);
+        }
+
+        @Override
+        protected int outstanding() {
+            return pending.size();
+        }
+
+        @Override
+        protected void submit(final Callable<Result<T>> task) {
+            pending.add(executor.submit(task));
+        }
+
+        @Override
+        protected Future<Result<T>> take() {
+            return pending.remove();
+        }
+    }
+
+    /**
+     * Returns results in the order they complete
+     */
+    private final class UnorderedRun extends Run {
+
+        private final CompletionService<Result<T>> completed = new ExecutorCompletionService<>(executor);
+        private int pending;
+
+        private UnorderedRun(final Iterator<? extends TextDataSource> sources) {
+            super(sources);
+        }
+
+        @Override
+        protected int outstanding() {
+            return pending;
+        }
+
+        @Override
+        protected void submit(final Callable<Result<T>> task) {
+            completed.submit(task);
+            ++pending;
+        }
+
+        @Override
+        protected Future<Result<T>> take() throws InterruptedException {
+            Future<Result<T>> result = completed.take();
+            --pending;
+            return result;
+        }
+    }
+}
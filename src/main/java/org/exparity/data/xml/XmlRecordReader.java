@@ -0,0 +1,343 @@
+/*
+ *
+ */
+
+package org.exparity.data.xml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.exparity.data.BadFormatException;
+import org.exparity.data.XML;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Reads the records of an XML document one at a time using StAX, for documents too large to be parsed into a single
+ * DOM. A record is every element which matches a path such as <code>/feed/item</code> and each one is returned as a
+ * separate {@link XML} instance whose document element is the record, so existing {@link XmlSelector}s,
+ * {@link XmlMatcher}s and {@link XmlMarshaller}s can be used against each record. Only the record being read is held
+ * in memory.
+ * <p>
+ * A path is a list of element names separated by <code>/</code> for a child or <code>//</code> for a descendant. A
+ * path which does not start with <code>/</code> matches at any depth, and <code>*</code> matches any element. Names
+ * without a prefix are matched against the local name of the element. Records are not nested, so the elements within
+ * a record are not matched against the path. Namespace declarations in scope for a record are copied onto it so that
+ * each record stands alone.
+ *
+ * <pre>
+ * try (Stream&lt;XML&gt; items = XML.streamFile(new File("feed.xml"), "/feed/item")) {
+ *     items.map(item -&gt; item.findTextByXpath("/item/title")).forEach(System.out::println);
+ * }
+ * </pre>
+ *
+ * @author Stewart Bissett
+ */
+public class XmlRecordReader implements Iterator<XML>, Closeable {
+
+    private static final String XMLNS = XMLConstants.XMLNS_ATTRIBUTE;
+
+    /**
+     * Open a reader over the records of a document which match a path. The input stream is closed when the reader is
+     * closed.
+     *
+     * @param source The XML document
+     * @param recordPath The path of the elements to return as records, for example <code>/feed/item</code>
+     */
+    public static XmlRecordReader open(final InputStream source, final String recordPath) {
+        Validate.notNull(source, "Input stream cannot be null");
+        return new XmlRecordReader(source, parsePath(recordPath));
+    }
+
+    private final InputStream source;
+    private final Step[] path;
+    private final List<String> elements = new ArrayList<>();
+    private final List<List<String[]>> namespaces = new ArrayList<>();
+    private XMLStreamReader reader;
+    private DocumentBuilder builder;
+    private boolean namespaceAware = false;
+    private XML next;
+    private boolean finished;
+
+    private XmlRecordReader(final InputStream source, final Step[] path) {
+        this.source = source;
+        this.path = path;
+    }
+
+    /**
+     * Build namespace aware records, as an {@link org.exparity.data.xml.parser.XmlParserBuilder} configured with
+     * {@link org.exparity.data.xml.parser.XmlParserBuilder#setNamespaceAware(boolean)} would. Defaults to
+     * <code>false</code>, as with {@link XML#read(InputStream)}.
+     */
+    public XmlRecordReader setNamespaceAware(final boolean namespaceAware) {
+        this.namespaceAware = namespaceAware;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = readNext();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public XML next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        XML record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Return a lazily read stream of the remaining records. The reader is closed when the stream is closed.
+     */
+    public Stream<XML> stream() {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            source.close();
+        }
+    }
+
+    private XML readNext() {
+        try {
+            if (reader == null) {
+                open();
+            }
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        elements.add(getName());
+                        if (matches(0, 0)) {
+                            elements.remove(elements.size() - 1);
+                            return XML.of(readRecord());
+                        }
+                        namespaces.add(getNamespaces());
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        elements.remove(elements.size() - 1);
+                        namespaces.remove(namespaces.size() - 1);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new BadFormatException(e);
+        }
+    }
+
+    private void open() throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        reader = factory.createXMLStreamReader(source);
+        try {
+            DocumentBuilderFactory documents = DocumentBuilderFactory.newInstance();
+            documents.setNamespaceAware(namespaceAware);
+            builder = documents.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Build a document from the element the reader is positioned on, leaving the reader on its end tag
+     */
+    private Document readRecord() throws XMLStreamException {
+        Document document = builder.newDocument();
+        Element root = createElement(document);
+        for (int i = namespaces.size() - 1; i >= 0; --i) {
+            for (String[] namespace : namespaces.get(i)) {
+                String name = StringUtils.isEmpty(namespace[0]) ? XMLNS : XMLNS + ":" + namespace[0];
+                if (!root.hasAttribute(name)) {
+                    setNamespace(root, name, namespace[1]);
+                }
+            }
+        }
+        document.appendChild(root);
+        Node parent = root;
+        while (parent != null) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    parent = parent.appendChild(createElement(document));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    parent = parent == root ? null : parent.getParentNode();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    parent.appendChild(document.createTextNode(reader.getText()));
+                    break;
+                case XMLStreamConstants.CDATA:
+                    parent.appendChild(document.createCDATASection(reader.getText()));
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    parent.appendChild(document.createComment(reader.getText()));
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    parent.appendChild(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return document;
+    }
+
+    private Element createElement(final Document document) {
+        Element element = namespaceAware
+                ? document.createElementNS(StringUtils.defaultIfEmpty(reader.getNamespaceURI(), null), getName())
+                : document.createElement(getName());
+        for (String[] namespace : getNamespaces()) {
+            setNamespace(element, StringUtils.isEmpty(namespace[0]) ? XMLNS : XMLNS + ":" + namespace[0],
+                    namespace[1]);
+        }
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            String prefix = reader.getAttributePrefix(i);
+            String name = StringUtils.isEmpty(prefix) ? reader.getAttributeLocalName(i)
+                    : prefix + ":" + reader.getAttributeLocalName(i);
+            if (namespaceAware) {
+                element.setAttributeNS(StringUtils.defaultIfEmpty(reader.getAttributeNamespace(i), null), name,
+                        reader.getAttributeValue(i));
+            } else {
+                element.setAttribute(name, reader.getAttributeValue(i));
+            }
+        }
+        return element;
+    }
+
+    private void setNamespace(final Element element, final String name, final String uri) {
+        if (namespaceAware) {
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, uri);
+        } else {
+            element.setAttribute(name, uri);
+        }
+    }
+
+    private String getName() {
+        String prefix = reader.getPrefix();
+        return StringUtils.isEmpty(prefix) ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+    }
+
+    private List<String[]> getNamespaces() {
+        List<String[]> declared = new ArrayList<>(reader.getNamespaceCount());
+        for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+            declared.add(new String[] {
+                    reader.getNamespacePrefix(i), StringUtils.defaultString(reader.getNamespaceURI(i)) });
+        }
+        return declared;
+    }
+
+    /**
+     * Return <code>true</code> if the open elements from a depth onwards match the steps of the path from a step
+     * onwards
+     */
+    private boolean matches(final int step, final int depth) {
+        if (step == path.length) {
+            return depth == elements.size();
+        }
+        if (depth == elements.size()) {
+            return false;
+        }
+        Step current = path[step];
+        if (current.descendant) {
+            for (int i = depth; i < elements.size(); ++i) {
+                if (current.matches(elements.get(i)) && matches(step + 1, i + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return current.matches(elements.get(depth)) && matches(step + 1, depth + 1);
+    }
+
+    private static Step[] parsePath(final String recordPath) {
+        Validate.notEmpty(recordPath, "Record path cannot be empty");
+        String path = recordPath.startsWith("/") ? recordPath : "//" + recordPath;
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        while (i < path.length()) {
+            boolean descendant = path.startsWith("//", i);
+            i += descendant ? 2 : 1;
+            int end = path.indexOf('/', i);
+            if (end < 0) {
+                end = path.length();
+            }
+            String name = path.substring(i, end);
+            Validate.isTrue(name.length() > 0 && StringUtils.containsNone(name, "[]@()"),
+                    "Invalid record path '" + recordPath + "'");
+            steps.add(new Step(name, descendant));
+            i = end;
+        }
+        return steps.toArray(new Step[steps.size()]);
+    }
+
+    /**
+     * A single step of a record path
+     */
+    private static final class Step {
+
+        private final String name;
+        private final boolean descendant;
+
+        private Step(final String name, final boolean descendant) {
+            this.name = name;
+            this.descendant = descendant;
+        }
+
+        private boolean matches(final String element) {
+            if ("*".equals(name) || name.equals(element)) {
+                return true;
+            }
+            return name.indexOf(':') < 0 && element.endsWith(":" + name);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.exparity.data.xml.parser;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -14,29 +15,79 @@ import org.exparity.data.xml.ClasspathEntityResolver;
 import org.exparity.data.xml.XmlParser;
 import org.w3c.dom.Document;
 import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 /**
- * Builder to instantiate and configure and XmlParser
+ * Builder to instantiate and configure and XmlParser. The parsers built keep a {@link DocumentBuilder} for each thread
+ * which uses them and reset it between documents rather than creating a new one for each document, so a parser should
+ * be built once and reused.
+ *
  * @author Stewart Bissett
  */
 public class XmlParserBuilder {
 
+    private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+    private static final String EXTERNAL_GENERAL_ENTITIES = "http://xml.org/sax/features/external-general-entities";
+    private static final String EXTERNAL_PARAMETER_ENTITIES = "http://xml.org/sax/features/external-parameter-entities";
+
     public static XmlParserBuilder newParserFactory() {
         return new XmlParserBuilder();
     }
 
     private boolean namespaceAware = false;
+    private boolean validating = false;
+    private boolean loadExternalDtd = true;
+    private boolean externalEntities = true;
 
     public XmlParserBuilder setNamespaceAware(final boolean namespaceAware) {
         this.namespaceAware = namespaceAware;
         return this;
     }
 
+    /**
+     * Validate documents against their DTD as they are parsed. Defaults to <code>false</code>.
+     */
+    public XmlParserBuilder setValidating(final boolean validating) {
+        this.validating = validating;
+        return this;
+    }
+
+    /**
+     * Load the external DTD of a document which is not being validated, for example to resolve the entities it
+     * declares. Defaults to <code>true</code>. Disabling it avoids resolving the DTD of every document.
+     */
+    public XmlParserBuilder setLoadExternalDtd(final boolean loadExternalDtd) {
+        this.loadExternalDtd = loadExternalDtd;
+        return this;
+    }
+
+    /**
+     * Resolve and include external general and parameter entities. Defaults to <code>true</code>. Disable it when
+     * parsing documents from untrusted sources.
+     */
+    public XmlParserBuilder setExternalEntities(final boolean externalEntities) {
+        this.externalEntities = externalEntities;
+        return this;
+    }
+
     public XmlParser build() {
         EntityResolver resolver = new ClasspathEntityResolver(JAXPParser.class);
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         factory.setNamespaceAware(namespaceAware);
+        factory.setValidating(validating);
+        try {
+            if (!loadExternalDtd) {
+                factory.setFeature(LOAD_EXTERNAL_DTD, false);
+            }
+            if (!externalEntities) {
+                factory.setFeature(EXTERNAL_GENERAL_ENTITIES, false);
+                factory.setFeature(EXTERNAL_PARAMETER_ENTITIES, false);
+                factory.setExpandEntityReferences(false);
+            }
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
         return new JAXPParser(factory, resolver);
     }
 
@@ -44,6 +95,7 @@ public class XmlParserBuilder {
 
         private final DocumentBuilderFactory factory;
         private final EntityResolver resolver;
+        private final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<>();
 
         private JAXPParser(final DocumentBuilderFactory factory, final EntityResolver resolver) {
             this.factory = factory;
@@ -53,10 +105,19 @@ public class XmlParserBuilder {
         @Override
         public XML parse(final InputStream is) throws BadFormatException {
             Validate.notNull(is, "Input stream cannot be null");
+            return parse(new InputSource(is));
+        }
+
+        @Override
+        public XML parse(final Reader reader) throws BadFormatException {
+            Validate.notNull(reader, "Reader cannot be null");
+            return parse(new InputSource(reader));
+        }
+
+        private XML parse(final InputSource source) {
             try {
-                DocumentBuilder builder = factory.newDocumentBuilder();
-                builder.setEntityResolver(resolver);
-                Document xml = builder.parse(is);
+                DocumentBuilder builder = getBuilder();
+                Document xml = builder.parse(source);
                 return XML.of(xml);
             } catch (SAXException e) {
                 throw new BadFormatException(e);
@@ -67,5 +128,22 @@ public class XmlParserBuilder {
             }
         }
 
+        /**
+         * Return the builder for the current thread, reset to the state it was created in. The factory is not thread
+         * safe so builders are created while holding its lock.
+         */
+        private DocumentBuilder getBuilder() throws ParserConfigurationException {
+            DocumentBuilder builder = builders.get();
+            if (builder == null) {
+                synchronized (factory) {
+                    builder = factory.newDocumentBuilder();
+                }
+                builders.set(builder);
+            } else {
+                builder.reset();
+            }
+            builder.setEntityResolver(resolver);
+            return builder;
+        }
     }
 }
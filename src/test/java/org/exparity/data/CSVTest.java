@@ -1,7 +1,19 @@
 package org.exparity.data;
 
+import static java.util.stream.Collectors.toList;
+import static org.exparity.dates.en.FluentLocalDate.AUG;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.exparity.data.types.ColumnType;
+import org.exparity.data.types.ColumnarTable;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.TableSchema;
 import org.exparity.io.classpath.JcpFile;
 import org.junit.Test;
 
@@ -25,4 +37,57 @@ public class CSVTest {
         assertEquals("\"quoted string\"", data.getValueAsString(1, 4));
         assertEquals(Boolean.TRUE, data.getValueAsBoolean(1, 5));
     }
+
+    @Test
+    public void canStreamCSV() throws Exception {
+        try (Stream<Row> stream = CSV.stream(JcpFile.open("/org/exparity/data/csv/sample.csv", CSVTest.class), true)) {
+            List<Row> rows = stream.collect(toList());
+            assertEquals(1, rows.size());
+            Row row = rows.get(0);
+            assertEquals(Arrays.asList("Column A", "Column B", "Column C", "Column D", "Column E", " Column F"),
+                    row.getHeader());
+            assertEquals(2, row.getHeaderIndex("Column C"));
+            assertEquals("text", row.getValueAsString(2));
+            assertEquals(Boolean.TRUE, row.getValueAsBoolean(5));
+        }
+    }
+
+    @Test
+    public void canReadCSVWithSchema() throws Exception {
+        TableSchema schema = TableSchema.newSchema()
+                .addColumn("Id", ColumnType.LONG)
+                .addDateColumn("Date", "dd/MM/yyyy", false)
+                .addColumn("Amount", ColumnType.DOUBLE, true);
+        CSV data = CSV.read(new StringReader("Id,Date,Amount,Note\n1,01/08/2010,2.5,A\n2,02/08/2010,,B\n"), true, schema);
+
+        ColumnarTable table = (ColumnarTable) data.asTable();
+        assertEquals(ColumnType.LONG, table.getColumnType(0));
+        assertEquals(ColumnType.DATE, table.getColumnType(1));
+        assertEquals(ColumnType.DOUBLE, table.getColumnType(2));
+        assertEquals(ColumnType.STRING, table.getColumnType(3));
+        assertEquals(Long.valueOf(2), data.getValueAsLong(1, 0));
+        assertEquals(AUG(2, 2010), data.getValueAsDate(1, 1, null));
+        assertEquals("01/08/2010", data.getValueAsString(0, 1));
+        assertEquals(2.5, data.getValueAsDouble(0, 2), 0.0);
+        assertNull(data.getValue(1, 2));
+    }
+
+    @Test
+    public void canRejectValueNotMatchingSchema() throws Exception {
+        TableSchema schema = TableSchema.newSchema().addColumn("Id", ColumnType.LONG);
+        try {
+            CSV.read(new StringReader("Id,Note\n1,A\nX,B\n"), true, schema);
+        } catch (BadFormatException e) {
+            assertEquals("X", e.getRaw());
+            assertEquals(true, e.getMessage().contains("row 1, column 0"));
+            return;
+        }
+        throw new AssertionError("Expected BadFormatException");
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void canRejectMissingRequiredValue() throws Exception {
+        TableSchema schema = TableSchema.newSchema().addColumn(1, ColumnType.STRING, false);
+        CSV.read(new StringReader("1,A\n2\n"), false, schema);
+    }
 }
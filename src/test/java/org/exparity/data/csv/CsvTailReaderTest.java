@@ -0,0 +1,87 @@
+package org.exparity.data.csv;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.exparity.data.types.Table;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class CsvTailReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canReadAppendedRecords() throws IOException {
+        File file = folder.newFile("feed.csv");
+        append(file, "Ticker,Price\nAAA,1.5\n");
+        CsvTailReader feed = CsvTailReader.open(file, true);
+
+        assertEquals(1, feed.poll());
+        Table first = feed.snapshot();
+        assertEquals(Arrays.asList("Ticker", "Price"), first.getHeader());
+
+        append(file, "BBB,2.5\n\"C,C\",3.5\nDDD,4");
+        assertEquals(2, feed.poll());
+        assertEquals(1, first.getNumOfRows());
+        assertEquals(3, feed.snapshot().getNumOfRows());
+        assertEquals("C,C", feed.snapshot().getValueAsString(2, 0));
+
+        append(file, ".5\n");
+        assertEquals(1, feed.poll());
+        assertEquals("4.5", feed.snapshot().getValueAsString(3, 1));
+        assertEquals(0, feed.poll());
+    }
+
+    @Test
+    public void canWaitForQuotedNewlines() throws IOException {
+        File file = folder.newFile("feed.csv");
+        append(file, "1,\"multi\nline");
+        CsvTailReader feed = CsvTailReader.open(file, false);
+
+        assertEquals(0, feed.poll());
+        append(file, "\"\n");
+        assertEquals(1, feed.poll());
+        assertEquals("multi\nline", feed.snapshot().getValueAsString(0, 1));
+    }
+
+    @Test
+    public void canResumeFromOffset() throws IOException {
+        File file = folder.newFile("feed.csv");
+        append(file, "Ticker,Price\nAAA,1.5\n");
+        CsvTailReader feed = CsvTailReader.open(file, true);
+        feed.poll();
+        long offset = feed.getOffset();
+
+        append(file, "BBB,2.5\n");
+        CsvTailReader resumed = CsvTailReader.open(file, true).setOffset(offset);
+        assertEquals(1, resumed.poll());
+        assertEquals("BBB", resumed.snapshot().getValueAsString(0, 0));
+        assertEquals(1, resumed.snapshot().getHeaderIndex("Price"));
+    }
+
+    @Test(expected = IOException.class)
+    public void canRejectTruncatedFile() throws IOException {
+        File file = folder.newFile("feed.csv");
+        append(file, "AAA,1.5\n");
+        CsvTailReader feed = CsvTailReader.open(file, false);
+        feed.poll();
+        Files.write(file.toPath(), new byte[0]);
+        feed.poll();
+    }
+
+    private void append(final File file, final String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,91 @@
+package org.exparity.data.csv;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.CSV;
+import org.exparity.data.types.Row;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class MappedCsvReaderTest {
+
+    private static final String DATA = "Name,Value,Note\r\nA,1,plain\n\nB,-22,\"quoted, with comma\"\n"
+            + "C,333,\"multi\nline \"\"quoted\"\"\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canReadRecords() throws IOException {
+        try (MappedCsvReader reader = MappedCsvReader.open(write(DATA), true, StandardCharsets.UTF_8)) {
+            verifyRecords(reader);
+        }
+    }
+
+    @Test
+    public void canReadRecordsAcrossWindows() throws IOException {
+        try (MappedCsvReader reader = new MappedCsvReader(write(DATA), true, StandardCharsets.UTF_8, 32)) {
+            verifyRecords(reader);
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void canRejectRecordLargerThanWindow() throws IOException {
+        try (MappedCsvReader reader = new MappedCsvReader(write(DATA), true, StandardCharsets.UTF_8, 8)) {
+            reader.next();
+        }
+    }
+
+    @Test
+    public void canStreamRows() throws IOException {
+        try (Stream<Row> rows = MappedCsvReader.open(write(DATA), true).rows()) {
+            List<Row> list = rows.collect(toList());
+            assertEquals(3, list.size());
+            assertEquals(1, list.get(2).getHeaderIndex("Value"));
+            assertEquals("333", list.get(2).getValueAsString(1));
+        }
+    }
+
+    @Test
+    public void canOpenMappedCSV() throws IOException {
+        CSV csv = CSV.openMappedFile(write(DATA), true);
+        assertEquals(3, csv.getNumOfRows());
+        assertEquals("Note", csv.getHeaderAsString(2));
+        assertEquals("quoted, with comma", csv.getValueAsString(1, 2));
+    }
+
+    private void verifyRecords(final MappedCsvReader reader) throws IOException {
+        assertEquals(Arrays.asList("Name", "Value", "Note"), reader.getHeader());
+        assertEquals(true, reader.next());
+        assertEquals(3, reader.getNumOfFields());
+        assertEquals("A", reader.getFieldAsString(0));
+        assertEquals(1L, reader.getFieldAsLong(1));
+        assertEquals(5, reader.getFieldBytes(2).remaining());
+        assertEquals(true, reader.next());
+        assertEquals(-22L, reader.getFieldAsLong(1));
+        assertEquals("quoted, with comma", reader.getFieldAsString(2));
+        assertEquals(true, reader.next());
+        assertEquals("multi\nline \"quoted\"", reader.getFieldAsString(2));
+        assertEquals(false, reader.next());
+    }
+
+    private File write(final String data) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), data.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
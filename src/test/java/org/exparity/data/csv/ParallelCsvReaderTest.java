@@ -0,0 +1,63 @@
+package org.exparity.data.csv;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.exparity.data.CSV;
+import org.exparity.data.types.Table;
+import org.exparity.io.filesystem.FileSystemFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class ParallelCsvReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canReadChunksInOrder() throws IOException {
+        File file = write(1000);
+        Table table = ParallelCsvReader.newReader().setChunkSize(64).read(file, true);
+        verifyTable(table, 1000);
+    }
+
+    @Test
+    public void canReadFileSystemFile() throws IOException {
+        File file = write(250);
+        Table table = ParallelCsvReader.newReader().setChunkSize(100).read(FileSystemFile.open(file), true);
+        verifyTable(table, 250);
+    }
+
+    @Test
+    public void canReadWithSingleChunk() throws IOException {
+        verifyTable(CSV.openFileInParallel(write(10), true).asTable(), 10);
+    }
+
+    private void verifyTable(final Table table, final int numOfRows) {
+        assertEquals(numOfRows, table.getNumOfRows());
+        assertEquals("Note", table.getHeaderAsString(2));
+        for (int i = 0; i < numOfRows; ++i) {
+            assertEquals(Integer.valueOf(i), table.getValueAsInteger(i, 0));
+            assertEquals("row " + i, table.getValueAsString(i, 1));
+            assertEquals("line\n" + i + ", \"quoted\"", table.getValueAsString(i, 2));
+        }
+    }
+
+    private File write(final int numOfRows) throws IOException {
+        StringBuilder data = new StringBuilder("Id,Name,Note\n");
+        for (int i = 0; i < numOfRows; ++i) {
+            data.append(i).append(",row ").append(i).append(",\"line\n").append(i).append(", \"\"quoted\"\"\"\r\n");
+        }
+        File file = folder.newFile();
+        Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
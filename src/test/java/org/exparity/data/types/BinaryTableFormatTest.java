@@ -0,0 +1,168 @@
+package org.exparity.data.types;
+
+import static java.time.format.DateTimeFormatter.ofPattern;
+import static org.exparity.dates.en.FluentLocalDate.AUG;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.types.BinaryTableFormat.ColumnInfo;
+import org.exparity.data.types.readers.BinaryTableReader;
+import org.exparity.data.types.writers.BinaryTableWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class BinaryTableFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    final String[][] data = { { "1", "2.5", "true", "A", "3000000000", "01/08/2010" },
+            { "2", "3", "false", "B", "4", "02/08/2010" }, { "3", "", "true", "A", null, "" } };
+    final String[] header = { "int", "double", "boolean", "string", "long", "date" };
+
+    @Test
+    public void canRoundTripTypedColumns() throws Exception {
+        ColumnarTable table = ColumnarTable.newBuilder()
+                .setHeader(header)
+                .setSchema(TableSchema.newSchema().addDateColumn("date", "dd/MM/yyyy", true))
+                .addRows(data)
+                .build();
+        ColumnarTable copy = roundTrip(table, false);
+
+        assertThat(copy.getHeader(), equalTo(Arrays.asList(header)));
+        assertThat(copy.getNumOfRows(), equalTo(3));
+        assertThat(copy.getNumOfColumns(), equalTo(6));
+        for (int columnId = 0; columnId < header.length; ++columnId) {
+            assertThat(copy.getColumnType(columnId), equalTo(table.getColumnType(columnId)));
+            for (int rowId = 0; rowId < data.length; ++rowId) {
+                assertThat(copy.getValueAsString(rowId, columnId), equalTo(table.getValueAsString(rowId, columnId)));
+            }
+        }
+        assertThat(copy.getValueAsString(2, 1), equalTo(""));
+        assertThat(copy.getValueAsString(2, 4), nullValue());
+        assertThat(copy.getValueAsDate(1, 5, ofPattern("dd/MM/yyyy")), equalTo(AUG(2, 2010)));
+    }
+
+    @Test
+    public void canRoundTripCompressed() throws Exception {
+        ColumnarTable.Builder builder = ColumnarTable.newBuilder().setHeader(new String[] { "id", "ccy" });
+        for (int i = 0; i < 10000; ++i) {
+            builder.addRow(new String[] { String.valueOf(i), i % 2 == 0 ? "GBP" : "USD" });
+        }
+        ColumnarTable table = builder.build();
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream(), compressed = new ByteArrayOutputStream();
+        table.writeTo(plain, new BinaryTableWriter());
+        table.writeTo(compressed, new BinaryTableWriter(true));
+        assertThat(compressed.size(), lessThan(plain.size()));
+
+        Table copy = Table.from(new ByteArrayInputStream(compressed.toByteArray()), true, new BinaryTableReader());
+        assertThat(copy.getNumOfRows(), equalTo(10000));
+        assertThat(copy.getValueAsString(9999, 0), equalTo("9999"));
+        assertThat(copy.getValueAsString(9999, 1), equalTo("USD"));
+    }
+
+    @Test
+    public void canReadFooterStatistics() throws Exception {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTableFormat.write(table, out, true);
+
+        List<ColumnInfo> columns = BinaryTableFormat.readColumnInfo(ByteBuffer.wrap(out.toByteArray()));
+        assertThat(columns.size(), equalTo(6));
+        assertThat(columns.get(0).getMin(), equalTo(1.0));
+        assertThat(columns.get(0).getMax(), equalTo(3.0));
+        assertThat(columns.get(1).getBlankCount(), equalTo(1));
+        assertThat(columns.get(3).getDistinctCount(), equalTo(2));
+        assertThat(columns.get(4).getNullCount(), equalTo(1));
+        assertThat(columns.get(4).getMax(), equalTo(3000000000.0));
+        assertThat(columns.get(3).isCompressed(), equalTo(true));
+    }
+
+    @Test
+    public void canWriteRowTables() throws Exception {
+        Table table = Table.builder()
+                .setHeader(new String[] { "a", "b" })
+                .addRows(new String[][] { { "x", "1" }, { "y", "2" } })
+                .build();
+        Table copy = roundTrip(table, false);
+        assertThat(copy.getValueAsString(1, 0), equalTo("y"));
+        assertThat(copy.getValueAsInteger(1, 1), equalTo(2));
+    }
+
+    @Test
+    public void canMapFile() throws Exception {
+        ColumnarTable table = ColumnarTable.newBuilder()
+                .setHeader(header)
+                .setSchema(TableSchema.newSchema().addDateColumn("date", "dd/MM/yyyy", true))
+                .addRows(data)
+                .build();
+        File file = folder.newFile("table.bin");
+        try (OutputStream out = new FileOutputStream(file)) {
+            table.writeTo(out, new BinaryTableWriter());
+        }
+
+        ColumnarTable mapped = BinaryTableFormat.map(file);
+        assertThat(mapped.getHeader(), equalTo(Arrays.asList(header)));
+        for (int columnId = 0; columnId < header.length; ++columnId) {
+            assertThat(mapped.getColumnType(columnId), equalTo(table.getColumnType(columnId)));
+            for (int rowId = 0; rowId < data.length; ++rowId) {
+                assertThat(mapped.getValueAsString(rowId, columnId), equalTo(table.getValueAsString(rowId, columnId)));
+                assertThat(mapped.getValue(rowId, columnId), equalTo(table.getValue(rowId, columnId)));
+            }
+        }
+        assertThat(mapped.getValueAsLong(0, 4), equalTo(3000000000L));
+        assertThat(mapped.getValueAsDouble(0, 1), equalTo(2.5));
+        assertThat(mapped.getValueAsDate(0, 5, ofPattern("dd/MM/yyyy")), equalTo(AUG(1, 2010)));
+        assertThat(mapped.getRow(1).getValueAsString(3), equalTo("B"));
+        assertThat(mapped.findRows(3, "A").size(), equalTo(2));
+
+        Table selected = mapped.select(new int[] { 2, 0 }, new int[] { 1, 3 });
+        assertThat(selected.getValueAsString(0, 0), equalTo(""));
+        assertThat(selected.getValueAsString(1, 1), equalTo("A"));
+
+        ColumnarTable copy = roundTrip(mapped, true);
+        assertThat(copy.getValueAsString(1, 5), equalTo("02/08/2010"));
+        assertThat(copy.getValueAsString(2, 4), nullValue());
+    }
+
+    @Test
+    public void canMapCompressedFile() throws Exception {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+        File file = folder.newFile("table.bin");
+        try (OutputStream out = new FileOutputStream(file)) {
+            BinaryTableFormat.write(table, out, true);
+        }
+        ColumnarTable mapped = BinaryTableFormat.map(file);
+        assertThat(mapped.getValueAsString(1, 3), equalTo("B"));
+        assertThat(mapped.getValueAsString(2, 1), equalTo(""));
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void canRejectOtherFormats() throws Exception {
+        BinaryTableFormat.read(new ByteArrayInputStream("a,b,c\n1,2,3\n".getBytes("UTF-8")));
+    }
+
+    private ColumnarTable roundTrip(final Table table, final boolean compress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTableFormat.write(table, out, compress);
+        return BinaryTableFormat.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,109 @@
+package org.exparity.data.types;
+
+import static java.time.format.DateTimeFormatter.ofPattern;
+import static org.exparity.dates.en.FluentLocalDate.AUG;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class ColumnarTableTest {
+
+    final String[][] data = { { "1", "2.5", "true", "A", "3000000000", "01/08/2010" },
+            { "2", "3", "false", "B", "4", "02/08/2010" }, { "3", "", "true", "A", "5", "03/08/2010" } };
+    final String[] header = { "int", "double", "boolean", "string", "long", "date" };
+
+    @Test
+    public void canInferColumnTypes() {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+
+        assertEquals(ColumnType.INTEGER, table.getColumnType(0));
+        assertEquals(ColumnType.DOUBLE, table.getColumnType(1));
+        assertEquals(ColumnType.BOOLEAN, table.getColumnType(2));
+        assertEquals(ColumnType.STRING, table.getColumnType(3));
+        assertEquals(ColumnType.LONG, table.getColumnType(4));
+        assertEquals(ColumnType.STRING, table.getColumnType(5));
+    }
+
+    @Test
+    public void canReadValues() {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+
+        assertEquals(3, table.getNumOfRows());
+        assertEquals(6, table.getNumOfColumns());
+        assertEquals(1, table.getHeaderIndex("double"));
+        assertEquals(Integer.valueOf(2), table.getValueAsInteger(1, 0));
+        assertEquals(2.5, table.getValueAsDouble(0, 1), 0.0);
+        assertEquals("3", table.getValueAsString(1, 1));
+        assertEquals("", table.getValueAsString(2, 1));
+        assertEquals(true, table.getValueAsBoolean(2, 2));
+        assertEquals("B", table.getValueAsString(1, 3));
+        assertEquals(Long.valueOf(3000000000L), table.getValueAsLong(0, 4));
+        assertEquals(AUG(1, 2010), table.getValueAsDate(0, 5, ofPattern("dd/MM/yyyy")));
+        assertEquals("A", table.getRow(2).getValueAsString(3));
+    }
+
+    @Test
+    public void canPreserveOriginalText() {
+        String[][] data = { { "007", "1.50", "-0" }, { "7", "1.5", "0" } };
+        ColumnarTable table = ColumnarTable.newBuilder().addRows(data).build();
+
+        assertEquals(ColumnType.STRING, table.getColumnType(0));
+        assertEquals("007", table.getValueAsString(0, 0));
+        assertEquals(Integer.valueOf(7), table.getValueAsInteger(0, 0));
+        assertEquals("1.50", table.getValueAsString(0, 1));
+        assertEquals("-0", table.getValueAsString(0, 2));
+    }
+
+    @Test
+    public void canSupportMixedSizedRows() {
+        Object[][] data = { { 1, "2", "three" }, { "4", 5 } };
+        ColumnarTable table = ColumnarTable.of(Table.withRows(data));
+        assertEquals(new Integer(1), table.getValueAsInteger(0, 0));
+        assertEquals("2", table.getValueAsString(0, 1));
+        assertEquals("three", table.getValueAsString(0, 2));
+        assertEquals("4", table.getValueAsString(1, 0));
+        assertEquals(new Integer(5), table.getValueAsInteger(1, 1));
+        assertNull("Expected null at index 1,2", table.getValue(1, 2));
+        assertEquals(2, table.getRow(1).getNumOfValues());
+    }
+
+    @Test
+    public void canStreamColumnValues() {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+
+        assertEquals(6, table.ints(0).sum());
+        assertEquals(5.5, table.doubles("double").parallel().sum(), 0.0);
+        assertEquals(3000000009L, table.longs(4).sum());
+        assertEquals(0, table.doubles(99).count());
+    }
+
+    @Test
+    public void canViewRowsWithoutCopying() {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+        Row row = table.getRow(1);
+
+        assertEquals(6, row.getNumOfColumns());
+        assertEquals("B", row.getValueAsString(3));
+        assertEquals(Long.valueOf(4), row.getValueAsLong(4));
+        assertEquals("02/08/2010", row.asStringArray()[5]);
+        assertEquals(3, row.getHeaderIndex("string"));
+        assertNull(row.getValue(6));
+    }
+
+    @Test
+    public void canSupportSortData() {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+
+        Table sorted = table.sort(0).sort(3);
+
+        assertEquals("string", sorted.getHeaderAsString(3));
+        assertEquals("1", sorted.getValueAsString(0, 0));
+        assertEquals("3", sorted.getValueAsString(1, 0));
+        assertEquals("2", sorted.getValueAsString(2, 0));
+        assertEquals(3.0, sorted.getValueAsDouble(2, 1), 0.0);
+    }
+}
@@ -0,0 +1,77 @@
+package org.exparity.data.types;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class ScalarDictionaryTest {
+
+    @Test
+    public void canShareRepeatedValues() {
+        Table table = Table.builder()
+                .setDictionary(ScalarDictionary.newDictionary())
+                .addRows(new String[][] { { "1", "GBP" }, { "2", "USD" }, { "3", new String("GBP") } })
+                .build();
+
+        assertThat(table.getValue(2, 1), sameInstance(table.getValue(0, 1)));
+        assertThat(table.getValueAsString(2, 1), sameInstance(table.getValueAsString(0, 1)));
+        assertThat(table.getValue(1, 1), not(sameInstance(table.getValue(0, 1))));
+        assertThat(table.getValueAsString(2, 1), equalTo("GBP"));
+    }
+
+    @Test
+    public void canKeepColumnsSeparate() {
+        ScalarDictionary dictionary = ScalarDictionary.newDictionary();
+        Scalar[] row = dictionary.intern(new String[] { "A", "A" });
+
+        assertThat(row[0], not(sameInstance(row[1])));
+        assertThat(dictionary.getNumOfValues(0), equalTo(1));
+        assertThat(dictionary.getNumOfValues(1), equalTo(1));
+        assertThat(dictionary.getNumOfValues(2), equalTo(0));
+    }
+
+    @Test
+    public void canStopAddingValuesWhenSaturated() {
+        ScalarDictionary dictionary = ScalarDictionary.newDictionary(2);
+        Scalar a = dictionary.intern(0, "A");
+        dictionary.intern(0, "B");
+        Scalar c = dictionary.intern(0, "C");
+
+        assertThat(dictionary.isSaturated(0), equalTo(true));
+        assertThat(dictionary.getNumOfValues(0), equalTo(2));
+        assertThat(dictionary.intern(0, "A"), sameInstance(a));
+        assertThat(dictionary.intern(0, "C"), not(sameInstance(c)));
+    }
+
+    @Test
+    public void canReturnNullForNullValue() {
+        ScalarDictionary dictionary = ScalarDictionary.newDictionary();
+        Scalar[] row = dictionary.intern(new String[] { null, "A" });
+
+        assertThat(row[0], nullValue());
+        assertThat(dictionary.intern(0, (Scalar) null), nullValue());
+        assertThat(dictionary.getNumOfValues(0), equalTo(0));
+    }
+
+    @Test
+    public void canInternRowsKeepingHeader() {
+        List<String> header = Arrays.asList("Id", "Currency");
+        ScalarDictionary dictionary = ScalarDictionary.newDictionary();
+        Row first = dictionary.intern(Row.of(Array.of(new String[] { "1", "GBP" }), header));
+        Row second = dictionary.intern(Row.of(Array.of(new String[] { "2", "GBP" }), header));
+
+        assertThat(second.getValue(1), sameInstance(first.getValue(1)));
+        assertThat(second.getValue(second.getHeaderIndex("Currency")), equalTo(new Scalar("GBP")));
+        assertThat(second.getHeader(), equalTo(header));
+    }
+}
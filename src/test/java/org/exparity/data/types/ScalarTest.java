@@ -0,0 +1,51 @@
+package org.exparity.data.types;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class ScalarTest {
+
+    @Test
+    public void canReadTextAsNumber() {
+        Scalar scalar = new Scalar("1.5");
+        assertEquals("1.5", scalar.getValueAsString());
+        assertEquals(1.5, scalar.getValueAsDouble(), 0.0);
+        assertEquals(1, scalar.getValueAsInteger());
+        assertEquals(1L, scalar.getValueAsLong());
+        assertEquals(BigDecimal.valueOf(1.5), scalar.getValueAsDecimal());
+    }
+
+    @Test
+    public void canReadNumberAsText() {
+        Scalar scalar = new Scalar(42L);
+        assertEquals("42", scalar.getValueAsString());
+        assertEquals(42, scalar.getValueAsInteger());
+        assertEquals(42.0, scalar.getValueAsDouble(), 0.0);
+    }
+
+    @Test
+    public void canReadBoolean() {
+        assertEquals(true, new Scalar(Boolean.TRUE).getValueAsBoolean());
+        assertEquals(true, new Scalar("true").getValueAsBoolean());
+        assertEquals("false", new Scalar(Boolean.FALSE).getValueAsString());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void canNotReadTextAsNumber() {
+        new Scalar("text").getValueAsInteger();
+    }
+
+    @Test
+    public void canCompareScalars() {
+        assertEquals(-1, Integer.signum(new Scalar("2").compareTo(new Scalar("10"))));
+        assertEquals(1, Integer.signum(new Scalar("b").compareTo(new Scalar("a"))));
+        assertEquals(-1, Integer.signum(new Scalar(2).compareTo(new Scalar("text"))));
+        assertEquals(0, new Scalar(Boolean.TRUE).compareTo(new Scalar("true")));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ */
+
+package org.exparity.data.types;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+
+import org.exparity.data.CSV;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class TableIndexTest {
+
+    private final Table table = Table.builder().setHeader(new String[] {
+            "Account", "Currency", "Balance"
+    }).addRows(new String[][] {
+            {
+                    "ACC-1", "GBP", "10"
+            }, {
+                    "ACC-2", "USD", "20"
+            }, {
+                    "ACC-1", "USD", "30"
+            }, {
+                    "ACC-3", "GBP", "40"
+            }
+    }).build();
+
+    @Test
+    public void canFindRowsByColumnValue() {
+        List<Row> rows = table.findRows(0, "ACC-1");
+        assertThat(rows.size(), equalTo(2));
+        assertThat(rows.get(0).getValueAsString(2), equalTo("10"));
+        assertThat(rows.get(1).getValueAsString(2), equalTo("30"));
+        assertThat(table.findRows("Currency", "GBP").size(), equalTo(2));
+        assertThat(table.findRows(0, "ACC-9"), empty());
+    }
+
+    @Test
+    public void canFindRowsByCompoundKey() {
+        TableIndex index = table.index(0, 1);
+        assertThat(index.getNumOfKeys(), equalTo(4));
+        assertThat(index.findRow("ACC-1", "USD").getValueAsString(2), equalTo("30"));
+        assertThat(index.findRow("ACC-2", "GBP"), nullValue());
+        assertThat(index.contains("ACC-3", "GBP"), equalTo(true));
+    }
+
+    @Test
+    public void canReturnRowIdsInTableOrder() {
+        TableIndex index = TableIndex.of(table, 1);
+        assertThat(index.getRowIds("USD"), equalTo(new int[] {
+                1, 2
+        }));
+        assertThat(index.getRowIds("EUR"), equalTo(new int[0]));
+    }
+
+    @Test
+    public void canFindRowsInColumnarTable() {
+        ColumnarTable columnar = ColumnarTable.of(table);
+        assertThat(columnar.findRows("Account", "ACC-1").size(), equalTo(2));
+        assertThat(columnar.getHeaderIndex("Balance"), equalTo(2));
+        assertThat(columnar.getHeaderIndex("Missing"), equalTo(Table.HEADER_NOT_FOUND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canRejectKeyOfWrongLength() {
+        table.index(0, 1).findRows("ACC-1");
+    }
+
+    @Test
+    public void canCacheHeaderIndexesCaseInsensitively() {
+        CSV csv = CSV.of(table);
+        assertThat(csv.getColumnIndexByHeader("currency"), equalTo(1));
+        assertThat(csv.getColumnIndexByHeader("BALANCE"), equalTo(2));
+        assertThat(csv.getColumnIndexByHeader("Missing"), equalTo(Row.COLUMN_NOT_FOUND));
+        assertThat(table.findRows(1, "GBP"), contains(table.getRow(0), table.getRow(3)));
+    }
+}
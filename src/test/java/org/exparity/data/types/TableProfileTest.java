@@ -0,0 +1,88 @@
+package org.exparity.data.types;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.exparity.data.CSV;
+import org.exparity.data.types.TableProfile.ColumnProfile;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class TableProfileTest {
+
+    final String[][] data = { { "1", "2.5", "GBP", "true" }, { "2", "", "USD", "false" }, { "3", "-4", "GBP" } };
+    final String[] header = { "Id", "Amount", "Currency", "Flag" };
+
+    @Test
+    public void canProfileTable() {
+        TableProfile profile = TableProfile.of(Table.withHeader(header).addRows(data));
+
+        assertThat(profile.getNumOfRows(), equalTo(3L));
+        assertThat(profile.getNumOfColumns(), equalTo(4));
+
+        ColumnProfile id = profile.getColumn("Id");
+        assertThat(id.getType(), equalTo(ColumnType.INTEGER));
+        assertThat(id.getMin(), equalTo(1.0));
+        assertThat(id.getMax(), equalTo(3.0));
+        assertThat(id.getDistinctCount(), equalTo(3L));
+
+        ColumnProfile amount = profile.getColumn(1);
+        assertThat(amount.getType(), equalTo(ColumnType.DOUBLE));
+        assertThat(amount.getBlankCount(), equalTo(1L));
+        assertThat(amount.getMin(), equalTo(-4.0));
+
+        ColumnProfile currency = profile.getColumn("Currency");
+        assertThat(currency.getType(), equalTo(ColumnType.STRING));
+        assertThat(currency.getDistinctCount(), equalTo(2L));
+        assertThat(currency.getAverageWidth(), equalTo(3.0));
+        assertThat(currency.getMin(), equalTo(Double.NaN));
+
+        ColumnProfile flag = profile.getColumn("Flag");
+        assertThat(flag.getType(), equalTo(ColumnType.BOOLEAN));
+        assertThat(flag.getNullCount(), equalTo(1L));
+        assertThat(profile.getColumn("Missing"), nullValue());
+    }
+
+    @Test
+    public void canProfileColumnarTable() {
+        ColumnarTable table = ColumnarTable.newBuilder().setHeader(header).addRows(data).build();
+        TableProfile profile = TableProfile.of(table);
+
+        for (int columnId = 0; columnId < header.length; ++columnId) {
+            assertThat(profile.getColumn(columnId).getType(), equalTo(table.getColumnType(columnId)));
+        }
+        assertThat(profile.getColumn("Flag").getNullCount(), equalTo(1L));
+    }
+
+    @Test
+    public void canProfileStream() throws IOException {
+        StringBuilder csv = new StringBuilder("Id,Code\n");
+        for (int i = 0; i < 100000; ++i) {
+            csv.append(i).append(",C").append(i % 5000).append('\n');
+        }
+        try (Stream<Row> rows = CSV.stream(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                true)) {
+            TableProfile profile = TableProfile.of(rows);
+            assertThat(profile.getNumOfRows(), equalTo(100000L));
+            assertThat(profile.getColumn("Id").getMax(), equalTo(99999.0));
+            assertThat((double) profile.getColumn("Id").getDistinctCount(), closeTo(100000, 3000));
+            assertThat((double) profile.getColumn("Code").getDistinctCount(), closeTo(5000, 150));
+        }
+    }
+
+    @Test
+    public void canProfileInexactLongsAsText() {
+        TableProfile profile = TableProfile.of(Table.withRows(new String[][] { { "9007199254740993" }, { "1.5" } }));
+        assertThat(profile.getColumn(0).getType(), equalTo(ColumnType.STRING));
+        assertThat(profile.getColumn(0).getName(), nullValue());
+    }
+}
@@ -40,6 +40,21 @@ public class TableTest {
         verifyTableData(table);
     }
 
+    @Test
+    public void canBuildTableWithBuilder() throws ParseException {
+        Table table = Table.builder(data.length).setHeader(header).addRows(data).build();
+
+        verifyTableHeader(table);
+        verifyTableData(table);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void canNotReuseBuilder() {
+        Table.Builder builder = Table.builder().addRows(data);
+        builder.build();
+        builder.addRows(data);
+    }
+
     @Test
     public void canSerializeNoHeader() throws BadFormatException, ParseException, IOException {
         final Table original = Table.withRows(data);
@@ -80,6 +95,27 @@ public class TableTest {
         assertNull("Expected null at index 1,2", table.getValue(1, 2));
     }
 
+    @Test
+    public void canStreamColumnValues() {
+        Table table = Table.withHeader(new String[] { "id", "amount" })
+                .addRows(new String[][] { { "1", "2.5" }, { "2", "" }, { "3", "4" } });
+
+        assertEquals(6.5, table.doubles("amount").sum(), 0.0);
+        assertEquals(6, table.ints(0).sum());
+        assertEquals(6L, table.longs("id").parallel().sum());
+        assertEquals(3, table.parallelRows().count());
+    }
+
+    @Test
+    public void canIsolateRowsFromSourceArrays() {
+        Scalar[][] rows = { { new Scalar("A"), new Scalar("B") } };
+        Table table = Table.withRows(rows);
+        rows[0][0] = new Scalar("Z");
+
+        assertEquals("A", table.getValueAsString(0, 0));
+        assertEquals("B", new Array(table.getRow(0)).getValueAsString(1));
+    }
+
     @Test
     public void canSupportSortData() {
         final Scalar[][] data = { { new Scalar(4), new Scalar(5), new Scalar(6) },
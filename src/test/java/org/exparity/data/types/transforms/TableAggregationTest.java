@@ -0,0 +1,102 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.types.ColumnarTable;
+import org.exparity.data.types.Table;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class TableAggregationTest {
+
+    private final Table trades = Table.builder().setHeader(new String[] {
+            "Account", "Currency", "Amount"
+    }).addRows(new String[][] {
+            {
+                    "A1", "GBP", "10"
+            }, {
+                    "A2", "USD", "2.5"
+            }, {
+                    "A1", "USD", "30"
+            }, {
+                    "A2", "USD", ""
+            }, {
+                    "A1", "GBP", "-5"
+            }
+    }).build();
+
+    @Test
+    public void canAggregateByColumn() {
+        Table totals = trades.as(TableAggregation.groupBy("Account")
+                .count()
+                .sum("Amount")
+                .min("Amount")
+                .max(2)
+                .mean("Amount")
+                .distinctCount("Currency"));
+        assertThat(totals.getHeader(), equalTo(asList("Account",
+                "count",
+                "sum(Amount)",
+                "min(Amount)",
+                "max(Amount)",
+                "mean(Amount)",
+                "distinct_count(Currency)")));
+        assertThat(totals.getNumOfRows(), equalTo(2));
+        assertThat(totals.getRow(0).asStringArray(), arrayContaining("A1", "3", "35", "-5", "30", "11.666666666666666", "2"));
+        assertThat(totals.getRow(1).asStringArray(), arrayContaining("A2", "2", "2.5", "2.5", "2.5", "2.5", "1"));
+    }
+
+    @Test
+    public void canAggregateByCompoundKey() {
+        Table totals = trades.as(TableAggregation.groupBy(0, 1).sum(2));
+        assertThat(totals.getNumOfRows(), equalTo(3));
+        assertThat(totals.getRow(0).asStringArray(), arrayContaining("A1", "GBP", "5"));
+        assertThat(totals.getRow(1).asStringArray(), arrayContaining("A2", "USD", "2.5"));
+        assertThat(totals.getRow(2).asStringArray(), arrayContaining("A1", "USD", "30"));
+    }
+
+    @Test
+    public void canLeaveBlankWhenGroupHasNoValues() {
+        Table totals = trades.as(TableAggregation.groupBy("Currency", "Amount").sum("Amount").count());
+        assertThat(totals.getRow(3).asStringArray(), arrayContaining("USD", "", "", "1"));
+    }
+
+    @Test
+    public void canAggregateInParallel() {
+        TableAggregation aggregation = TableAggregation.groupBy("Account")
+                .count()
+                .sum("Amount")
+                .min("Amount")
+                .distinctCount("Currency");
+        Table expected = trades.as(aggregation);
+        Table actual = trades.as(aggregation.setPool(new ForkJoinPool(2)).setChunkSize(2));
+        assertThat(actual.getNumOfRows(), equalTo(expected.getNumOfRows()));
+        for (int i = 0; i < expected.getNumOfRows(); ++i) {
+            assertThat(actual.getRow(i).asStringArray(), equalTo(expected.getRow(i).asStringArray()));
+        }
+    }
+
+    @Test
+    public void canAggregateColumnarTable() {
+        Table totals = ColumnarTable.of(trades).as(TableAggregation.groupBy(0).sum(2).count());
+        assertThat(totals.getRow(0).asStringArray(), arrayContaining("A1", "35", "3"));
+        assertThat(totals.getRow(1).asStringArray(), arrayContaining("A2", "2.5", "2"));
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void canRejectNonNumericValues() {
+        trades.as(TableAggregation.groupBy(0).sum(1));
+    }
+}
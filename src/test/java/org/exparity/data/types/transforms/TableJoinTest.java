@@ -0,0 +1,156 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+
+import org.exparity.data.types.Table;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class TableJoinTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Table trades = Table.builder().setHeader(new String[] {
+            "Trade", "Account"
+    }).addRows(new String[][] {
+            {
+                    "T1", "A1"
+            }, {
+                    "T2", "A2"
+            }, {
+                    "T3", "A9"
+            }, {
+                    "T4", "A1"
+            }
+    }).build();
+
+    private final Table accounts = Table.builder().setHeader(new String[] {
+            "Id", "Owner"
+    }).addRows(new String[][] {
+            {
+                    "A1", "Bob"
+            }, {
+                    "A2", "Jane"
+            }, {
+                    "A2", "Joint"
+            }
+    }).build();
+
+    @Test
+    public void canInnerJoin() {
+        Table joined = trades.as(TableJoin.inner(accounts).on("Account", "Id"));
+        assertThat(joined.getHeader(), equalTo(asList("Trade", "Account", "Id", "Owner")));
+        assertThat(joined.getNumOfRows(), equalTo(4));
+        assertThat(joined.getRow(0).asStringArray(), arrayContaining("T1", "A1", "A1", "Bob"));
+        assertThat(joined.getRow(1).asStringArray(), arrayContaining("T2", "A2", "A2", "Jane"));
+        assertThat(joined.getRow(2).asStringArray(), arrayContaining("T2", "A2", "A2", "Joint"));
+        assertThat(joined.getRow(3).asStringArray(), arrayContaining("T4", "A1", "A1", "Bob"));
+    }
+
+    @Test
+    public void canLeftJoin() {
+        Table joined = trades.leftJoin(accounts, 1, 0);
+        assertThat(joined.getNumOfRows(), equalTo(5));
+        assertThat(joined.getRow(3).asStringArray(), arrayContaining("T3", "A9", "", ""));
+        assertThat(joined.getRow(3).getHeaderIndex("Owner"), equalTo(3));
+    }
+
+    @Test
+    public void canAntiJoin() {
+        Table joined = trades.antiJoin(accounts, 1, 0);
+        assertThat(joined.getHeader(), equalTo(asList("Trade", "Account")));
+        assertThat(joined.getNumOfRows(), equalTo(1));
+        assertThat(joined.getRow(0).asStringArray(), arrayContaining("T3", "A9"));
+    }
+
+    @Test
+    public void canJoinOnCompoundKey() {
+        Table prices = Table.withRows(new String[][] {
+                {
+                        "A1", "T4", "99"
+                }
+        });
+        Table joined = trades.as(TableJoin.inner(prices).on(1, 0).on(0, 1));
+        assertThat(joined.getNumOfRows(), equalTo(1));
+        assertThat(joined.getHeader(), equalTo(asList("Trade", "Account", "", "", "")));
+        assertThat(joined.getRow(0).getValueAsString(4), equalTo("99"));
+    }
+
+    @Test
+    public void canAlignHeadersToColumns() {
+        Table narrow = Table.builder().setHeader(new String[] {
+                "Id"
+        }).addRows(new String[][] {
+                {
+                        "A1", "Bob"
+                }
+        }).build();
+        Table wide = Table.builder().setHeader(new String[] {
+                "Trade", "Account", "Extra"
+        }).addRows(new String[][] {
+                {
+                        "T1", "A1"
+                }
+        }).build();
+        Table joined = wide.as(TableJoin.inner(narrow).on(1, 0));
+        assertThat(joined.getHeader(), equalTo(asList("Trade", "Account", "Id", "")));
+        assertThat(joined.getRow(0).getHeaderIndex("Id"), equalTo(2));
+    }
+
+    @Test
+    public void canJoinBySpillingToDisk() throws IOException {
+        TableJoin join = TableJoin.left(accounts).on(1, 0).setSpillThreshold(1).setTempDirectory(folder.getRoot());
+        Table joined = trades.as(join);
+        Table expected = trades.as(TableJoin.left(accounts).on(1, 0));
+        assertThat(joined.getNumOfRows(), equalTo(expected.getNumOfRows()));
+        for (int i = 0; i < expected.getNumOfRows(); ++i) {
+            assertThat(joined.getRow(i).asStringArray(), equalTo(expected.getRow(i).asStringArray()));
+        }
+        assertThat(folder.getRoot().listFiles(), emptyArray());
+    }
+
+    @Test
+    public void canJoinBySpillingKeysWithBackslashesAndQuotes() throws IOException {
+        Table left = Table.withRows(new String[][] {
+                {
+                        "C:\\data\\", "x"
+                }, {
+                        "a\\\"b", "y"
+                }, {
+                        "plain,\\", "z"
+                }
+        });
+        Table right = Table.withRows(new String[][] {
+                {
+                        "C:\\data\\", "x", "1"
+                }, {
+                        "a\\\"b", "y", "2"
+                }, {
+                        "plain,\\", "z", "3"
+                }
+        });
+        TableJoin join = TableJoin.inner(right).on(0, 0).on(1, 1).setSpillThreshold(1).setTempDirectory(folder
+                .getRoot());
+        Table joined = left.as(join);
+        assertThat(joined.getNumOfRows(), equalTo(3));
+        assertThat(joined.getRow(0).asStringArray(), arrayContaining("C:\\data\\", "x", "C:\\data\\", "x", "1"));
+        assertThat(joined.getRow(1).asStringArray(), arrayContaining("a\\\"b", "y", "a\\\"b", "y", "2"));
+        assertThat(joined.getRow(2).asStringArray(), arrayContaining("plain,\\", "z", "plain,\\", "z", "3"));
+        assertThat(folder.getRoot().listFiles(), emptyArray());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+import org.exparity.data.types.ColumnType;
+import org.exparity.data.types.ColumnarTable;
+import org.exparity.data.types.Table;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class TableQueryTest {
+
+    private final Table trades = Table.builder().setHeader(new String[] {
+            "Trade", "Currency", "Amount"
+    }).addRows(new String[][] {
+            {
+                    "T1", "GBP", "1500"
+            }, {
+                    "T2", "USD", "2000"
+            }, {
+                    "T3", "GBP", "500"
+            }, {
+                    "T4", "GBP", ""
+            }, {
+                    "T5", "GBP", "3000"
+            }
+    }).build();
+
+    @Test
+    public void canFilterAndProject() {
+        Table gbp = trades.as(TableQuery.select("Amount", "Trade")
+                .whereEquals("Currency", "GBP")
+                .whereNumber("Amount", amount -> amount > 1000));
+        assertThat(gbp.getHeader(), equalTo(asList("Amount", "Trade")));
+        assertThat(gbp.getNumOfRows(), equalTo(2));
+        assertThat(gbp.getRow(0).asStringArray(), arrayContaining("1500", "T1"));
+        assertThat(gbp.getRow(1).asStringArray(), arrayContaining("3000", "T5"));
+    }
+
+    @Test
+    public void canLimitRows() {
+        TableQuery query = TableQuery.selectAll().whereValue(1, currency -> currency.startsWith("G")).limit(2);
+        assertThat(query.findRowIds(trades), equalTo(new int[] {
+                0, 2
+        }));
+        Table limited = trades.as(query);
+        assertThat(limited.getNumOfRows(), equalTo(2));
+        assertThat(limited.getRow(1), equalTo(trades.getRow(2)));
+    }
+
+    @Test
+    public void canFilterOnRows() {
+        Table rows = trades.as(TableQuery.select(0).where(row -> row.getValueAsString(2).isEmpty()));
+        assertThat(rows.getNumOfRows(), equalTo(1));
+        assertThat(rows.getRow(0).asStringArray(), arrayContaining("T4"));
+    }
+
+    @Test
+    public void canQueryAcrossBatches() {
+        Table.Builder builder = Table.builder(5000);
+        for (int i = 0; i < 5000; ++i) {
+            builder.addRow(new String[] {
+                    String.valueOf(i)
+            });
+        }
+        int[] rowIds = TableQuery.selectAll().whereNumber(0, value -> value % 1000 == 999).findRowIds(builder.build());
+        assertThat(rowIds, equalTo(new int[] {
+                999, 1999, 2999, 3999, 4999
+        }));
+    }
+
+    @Test
+    public void canQueryColumnarTable() {
+        Table gbp = ColumnarTable.of(trades).as(TableQuery.select("Trade", "Amount").whereEquals(1, "GBP"));
+        assertThat(gbp, instanceOf(ColumnarTable.class));
+        assertThat(((ColumnarTable) gbp).getColumnType(1), equalTo(ColumnType.INTEGER));
+        assertThat(gbp.getNumOfRows(), equalTo(4));
+        assertThat(gbp.getValueAsString(2, 0), equalTo("T4"));
+        assertThat(gbp.getValueAsString(2, 1), equalTo(""));
+        assertThat(gbp.getValueAsDouble(3, 1), equalTo(3000.0));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.transforms;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.exparity.data.types.ColumnarTable;
+import org.exparity.data.types.Table;
+import org.exparity.data.types.writers.CsvTableWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class TableSortTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Table trades = Table.builder().setHeader(new String[] {
+            "Trade", "Account", "Amount"
+    }).addRows(new String[][] {
+            {
+                    "T1", "B", "10"
+            }, {
+                    "T2", "A", "9"
+            }, {
+                    "T3", "B", ""
+            }, {
+                    "T4", "A", "100"
+            }, {
+                    "T5", "B", "n/a"
+            }, {
+                    "T6", "B", "10.5"
+            }
+    }).build();
+
+    @Test
+    public void canSortByMultipleKeys() {
+        Table sorted = trades.as(TableSort.by("Account").thenBy("Amount").descending().nullsLast());
+        assertThat(trades(sorted), equalTo("T4,T2,T5,T6,T1,T3"));
+    }
+
+    @Test
+    public void canSortNumbersBeforeTextWithNullsFirst() {
+        assertThat(trades(trades.as(TableSort.by(2))), equalTo("T3,T2,T1,T6,T4,T5"));
+    }
+
+    @Test
+    public void canSortStably() {
+        assertThat(trades(trades.sort(1)), equalTo("T2,T4,T1,T3,T5,T6"));
+    }
+
+    @Test
+    public void canSortColumnarTable() {
+        ColumnarTable columnar = ColumnarTable.of(trades);
+        assertThat(trades(columnar.as(TableSort.by(2).nullsLast())), equalTo("T2,T1,T6,T4,T5,T3"));
+    }
+
+    @Test
+    public void canSortLargeTableInParallel() {
+        Random random = new Random(42);
+        Table.Builder builder = Table.builder(50000);
+        for (int i = 0; i < 50000; ++i) {
+            builder.addRow(new String[] {
+                    String.valueOf(random.nextInt(1000)), String.valueOf(i)
+            });
+        }
+        Table table = builder.build();
+        int[] rowIds = TableSort.by(0).setPool(new ForkJoinPool(4)).sortRowIds(table);
+        for (int i = 1; i < rowIds.length; ++i) {
+            int previous = table.getValueAsInteger(rowIds[i - 1], 0), current = table.getValueAsInteger(rowIds[i], 0);
+            assertThat(previous <= current, equalTo(true));
+            if (previous == current) {
+                assertThat(rowIds[i - 1] < rowIds[i], equalTo(true));
+            }
+        }
+    }
+
+    @Test
+    public void canSortFileByMergingRuns() throws IOException {
+        File source = folder.newFile("source.csv"), target = folder.newFile("target.csv");
+        File runs = folder.newFolder("runs");
+        try (CsvTableWriter.RowWriter writer = CsvTableWriter.open(new FileOutputStream(source))) {
+            writer.writeHeader(trades.getHeader()).writeRows(trades.rowIterator());
+        }
+        TableSort.by("Account").thenBy("Amount").descending().nullsLast().setMaxRowsInMemory(2).setTempDirectory(runs)
+                .sort(source, true, target);
+        assertThat(new String(Files.readAllBytes(target.toPath()), Charset.defaultCharset()),
+                equalTo("\"Trade\",\"Account\",\"Amount\"\n"
+                        + "\"T4\",\"A\",\"100\"\n"
+                        + "\"T2\",\"A\",\"9\"\n"
+                        + "\"T5\",\"B\",\"n/a\"\n"
+                        + "\"T6\",\"B\",\"10.5\"\n"
+                        + "\"T1\",\"B\",\"10\"\n"
+                        + "\"T3\",\"B\",\"\"\n"));
+        assertThat(runs.listFiles(), emptyArray());
+    }
+
+    private static String trades(final Table table) {
+        StringBuilder trades = new StringBuilder();
+        for (int i = 0; i < table.getNumOfRows(); ++i) {
+            trades.append(i > 0 ? "," : "").append(table.getValueAsString(i, 0));
+        }
+        return trades.toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *
+ */
+
+package org.exparity.data.types.writers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.exparity.data.CSV;
+import org.exparity.data.types.Row;
+import org.exparity.data.types.Table;
+import org.junit.Test;
+
+import au.com.bytecode.opencsv.CSVWriter;
+
+/**
+ * @author Stewart Bissett
+ */
+public class CsvTableWriterTest {
+
+    @Test
+    public void canWriteRowsIncrementally() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvTableWriter.RowWriter writer = CsvTableWriter.open(out, StandardCharsets.UTF_8, 16)) {
+            writer.writeHeader(Arrays.asList("Name", "Comment"));
+            writer.writeRow("Bob", "Says \"hi\"");
+            writer.writeRow(Row.of(new String[] {
+                    "Jane", "Line 1\nLine 2, with comma"
+            }));
+            writer.writeRow("Zoë", null);
+        }
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                equalTo("\"Name\",\"Comment\"\n"
+                        + "\"Bob\",\"Says \"\"hi\"\"\"\n"
+                        + "\"Jane\",\"Line 1\nLine 2, with comma\"\n"
+                        + "\"Zoë\",\n"));
+    }
+
+    @Test
+    public void canWriteSameOutputAsOpenCsv() throws IOException {
+        Table table = Table.builder().setHeader(new String[] {
+                "H1", "H2", "H3"
+        }).addRow(new String[] {
+                "A", "B\"", "C"
+        }).addRow(new String[] {
+                "1", "", "x,\"y\"\r\nz"
+        }).build();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(expected, StandardCharsets.UTF_8))) {
+            writer.writeNext(table.getHeader().toArray(new String[0]));
+            table.rows().forEach(row -> writer.writeNext(row.asStringArray()));
+        }
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        new CsvTableWriter(StandardCharsets.UTF_8).write(table, actual);
+        assertThat(actual.toByteArray(), equalTo(expected.toByteArray()));
+    }
+
+    @Test
+    public void canReadBackWrittenTable() throws IOException {
+        Table table = Table.builder().setHeader(new String[] {
+                "Id", "Value"
+        }).addRow(new String[] {
+                "1", "A \"quoted\" value"
+        }).addRow(new String[] {
+                "2", "Multi\nline"
+        }).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CSV.of(table).writeTo(out, StandardCharsets.UTF_8);
+        CSV read = CSV.read(new StringReader(new String(out.toByteArray(), StandardCharsets.UTF_8)), true);
+        assertThat(read.getHeader(), equalTo(table.getHeader()));
+        assertThat(read.getNumOfRows(), equalTo(2));
+        assertThat(read.getValueAsString(0, 1), equalTo("A \"quoted\" value"));
+        assertThat(read.getValueAsString(1, 1), equalTo("Multi\nline"));
+    }
+}
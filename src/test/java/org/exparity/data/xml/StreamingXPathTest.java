@@ -0,0 +1,140 @@
+package org.exparity.data.xml;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.XML;
+import org.exparity.data.xml.selectors.XPathStringSelector;
+import org.exparity.io.classpath.JcpFile;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class StreamingXPathTest {
+
+    private static final String FEED = "<feed><title>Prices</title>"
+            + "<item type=\"bond\" id=\"1\"><isin>GB001</isin><price currency=\"GBP\">1.5</price></item>"
+            + "<item type=\"equity\" id=\"2\"><isin>US002</isin><price currency=\"USD\">2.5</price></item>"
+            + "<group><item type=\"bond\" id=\"3\"><isin>DE003</isin><price>3.5</price></item></group>"
+            + "<note>a<b>b</b>c</note>"
+            + "</feed>";
+
+    @Test
+    public void canSelectChildPath() throws Exception {
+        assertThat(evaluate("/feed/item/isin"), contains("GB001", "US002"));
+    }
+
+    @Test
+    public void canSelectDescendantPath() throws Exception {
+        assertThat(evaluate("//item/isin"), contains("GB001", "US002", "DE003"));
+        assertThat(evaluate("/feed//isin"), contains("GB001", "US002", "DE003"));
+    }
+
+    @Test
+    public void canSelectWithAttributePredicate() throws Exception {
+        assertThat(evaluate("//item[@type='bond']/isin/text()"), contains("GB001", "DE003"));
+        assertThat(evaluate("//item[@type=\"bond\"][@id='3']/isin"), contains("DE003"));
+        assertThat(evaluate("//price[@currency]"), contains("1.5", "2.5"));
+    }
+
+    @Test
+    public void canSelectAttribute() throws Exception {
+        assertThat(evaluate("//item/@id"), contains("1", "2", "3"));
+        assertThat(evaluate("//@currency"), contains("GBP", "USD"));
+    }
+
+    @Test
+    public void canSelectTextContentOrDirectText() throws Exception {
+        assertThat(evaluate("/feed/note"), contains("abc"));
+        assertThat(evaluate("/feed/note/text()"), contains("a", "c"));
+    }
+
+    @Test
+    public void canSelectWildcard() throws Exception {
+        assertThat(evaluate("/feed/*/isin"), contains("GB001", "US002"));
+    }
+
+    @Test
+    public void canSelectNothing() throws Exception {
+        assertThat(evaluate("/feed/missing"), empty());
+        assertThat(evaluate("/item"), empty());
+    }
+
+    @Test
+    public void canSelectNestedMatchesInDocumentOrder() throws Exception {
+        XML xml = XML.of("<a><b>1<b>2</b></b><b>3</b></a>");
+        Map<String, List<String>> results = StreamingXPath.compile("//b").evaluate(stream(xml.getText()));
+        assertEquals(new XPathStringSelector("//b").select(xml), results.get("//b"));
+    }
+
+    @Test
+    public void canEvaluateManyExpressionsInOnePass() throws Exception {
+        Map<String, List<String>> results = StreamingXPath
+                .compile("/feed/title", "//item[@type='equity']/isin", "//price/@currency")
+                .evaluate(stream(FEED));
+        assertThat(results.keySet(), contains("/feed/title", "//item[@type='equity']/isin", "//price/@currency"));
+        assertThat(results.get("/feed/title"), contains("Prices"));
+        assertThat(results.get("//item[@type='equity']/isin"), contains("US002"));
+        assertThat(results.get("//price/@currency"), contains("GBP", "USD"));
+    }
+
+    @Test
+    public void canMatchXPathStringSelector() throws Exception {
+        String[] expressions = { "//sampleElement/@elementIndex", "//sampleElement[@elementIndex='2']/sampleChild",
+                "/sampleData/content[@attr='xyz']/text()", "/sampleData/sampleElement" };
+        XML xml = XML.openResource("/org/exparity/data/xml/sample.xml", XML.class);
+        Map<String, List<String>> results = StreamingXPath.compile(expressions)
+                .evaluate(JcpFile.open("/org/exparity/data/xml/sample.xml", XML.class));
+        for (String expression : expressions) {
+            assertEquals(expression, new XPathStringSelector(expression).select(xml), results.get(expression));
+        }
+    }
+
+    @Test
+    public void canMatchXPathStringSelectorForDescendantOrSelf() throws Exception {
+        String[] expressions = { "/a//text()", "/a//@id", "//a//@id", "//text()", "//@id", "/a/c//text()" };
+        XML xml = XML.of("<a id='1'>top<b id='2'>inner</b><c><b id='3'>deep</b></c></a>");
+        Map<String, List<String>> results = StreamingXPath.compile(expressions).evaluate(stream(xml.getText()));
+        for (String expression : expressions) {
+            assertEquals(expression, new XPathStringSelector(expression).select(xml), results.get(expression));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canRejectRelativePath() throws Exception {
+        StreamingXPath.compile("feed/item");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canRejectPositionalPredicate() throws Exception {
+        StreamingXPath.compile("/feed/item[1]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canRejectFunctions() throws Exception {
+        StreamingXPath.compile("count(/feed/item)");
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void canFailOnInvalidXml() throws Exception {
+        StreamingXPath.compile("/feed/item").evaluate(stream("<feed><item></feed>"));
+    }
+
+    private static List<String> evaluate(final String expression) {
+        return StreamingXPath.compile(expression).evaluate(stream(FEED)).get(expression);
+    }
+
+    private static InputStream stream(final String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
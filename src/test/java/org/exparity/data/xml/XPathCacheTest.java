@@ -0,0 +1,97 @@
+package org.exparity.data.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.exparity.data.XML;
+import org.exparity.data.types.Pair;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class XPathCacheTest {
+
+    private static final String TEST_NS = "http://www.modularit.co.uk/schema/TEST-1.0";
+
+    @Test
+    public void canReuseCompiledExpression() throws Exception {
+        XPathCache cache = XPathCache.newCache(10);
+        XPathExpression expression = cache.compile("//item");
+        assertSame(expression, cache.compile("//item"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void canEvaluateCompiledExpression() throws Exception {
+        XML xml = XML.of("<feed><item>a</item><item>b</item></feed>");
+        XPathExpression expression = XPathCache.newCache(10).compile("count(//item)");
+        assertEquals("2", expression.evaluate(xml.asDocument()));
+    }
+
+    @Test
+    public void canEvictLeastRecentlyUsed() throws Exception {
+        XPathCache cache = XPathCache.newCache(2);
+        XPathExpression first = cache.compile("//a");
+        cache.compile("//b");
+        cache.compile("//a");
+        cache.compile("//c");
+        assertEquals(2, cache.size());
+        assertSame(first, cache.compile("//a"));
+        assertEquals(2, cache.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void canKeyByNamespaces() throws Exception {
+        XPathCache cache = XPathCache.newCache(10);
+        XPathExpression withTest = cache.compile("//x:item", Pair.create("x", TEST_NS));
+        assertSame(withTest, cache.compile("//x:item", Pair.create("x", TEST_NS)));
+        assertNotSame(withTest, cache.compile("//x:item", Pair.create("x", "urn:other")));
+        assertEquals(2, cache.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void canCopyNamespacesFromArray() throws Exception {
+        XPathCache cache = XPathCache.newCache(10);
+        Pair<String, String>[] namespaces = new Pair[] {
+                Pair.create("x", TEST_NS)
+        };
+        XPathExpression withTest = cache.compile("//x:item", namespaces);
+        namespaces[0] = Pair.create("x", "urn:other");
+        assertSame(withTest, cache.compile("//x:item", Pair.create("x", TEST_NS)));
+        assertEquals(TEST_NS, XPathCache.namespaces(Pair.create("x", TEST_NS)).getNamespaceURI("x"));
+    }
+
+    @Test
+    public void canCompileSeparatelyForEachThread() throws Exception {
+        XPathCache cache = XPathCache.newCache(10);
+        XPathExpression local = cache.compile("//item");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<XPathExpression> other = executor.submit(() -> cache.compile("//item"));
+            assertNotSame(local, other.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = XPathExpressionException.class)
+    public void canFailOnInvalidExpression() throws Exception {
+        XPathCache.newCache(10).compile("//[");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canFailOnNonPositiveSize() {
+        XPathCache.newCache(0);
+    }
+}
@@ -0,0 +1,189 @@
+package org.exparity.data.xml;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.XML;
+import org.exparity.data.xml.XmlPipeline.Result;
+import org.exparity.data.xml.XmlPipeline.Stage;
+import org.exparity.io.TextDataSource;
+import org.junit.Test;
+
+/**
+ * @author Stewart Bissett
+ */
+public class XmlPipelineTest {
+
+    @Test
+    public void canParseInOrder() throws Exception {
+        try (Stream<Result<XML>> results = XmlPipeline.newPipeline().setThreads(4).process(documents(50))) {
+            List<Result<XML>> processed = results.collect(toList());
+            assertEquals(50, processed.size());
+            for (int i = 0; i < 50; ++i) {
+                assertEquals(i, processed.get(i).getIndex());
+                assertTrue(processed.get(i).isSuccess());
+                assertEquals(String.valueOf(i), processed.get(i).getValue().findTextByXpath("/a/@id"));
+            }
+        }
+    }
+
+    @Test
+    public void canReturnInCompletionOrder() throws Exception {
+        XmlPipeline<XML> pipeline = XmlPipeline.newPipeline().setThreads(4).setOrdered(false);
+        try (Stream<Result<XML>> results = pipeline.process(documents(50))) {
+            List<Long> indexes = results.map(Result::getIndex).sorted().collect(toList());
+            assertEquals(IntStream.range(0, 50).mapToObj(Long::valueOf).collect(toList()), indexes);
+        }
+    }
+
+    @Test
+    public void canRunEveryStage() throws Exception {
+        XmlPipeline<Integer> pipeline = XmlPipeline.newPipeline()
+                .setValidator(() -> xml -> new ValidationResult(xml.findTextByXpath("/a/@id") != null))
+                .setTransformer(() -> xml -> XML.of("<b>" + xml.findTextByXpath("/a/@id") + "</b>"))
+                .setMarshaller(() -> new IntegerMarshaller())
+                .setThreads(2);
+        try (Stream<Result<Integer>> results = pipeline.process(documents(10))) {
+            List<Result<Integer>> processed = results.collect(toList());
+            for (int i = 0; i < 10; ++i) {
+                Result<Integer> result = processed.get(i);
+                assertTrue(result.isSuccess());
+                assertEquals(Integer.valueOf(i), result.getValue());
+                assertTrue(result.getValidation().isValid());
+                assertTrue(result.getTime(Stage.UNMARSHAL) > 0);
+                assertTrue(result.getTotalTime() >= result.getTime(Stage.PARSE) + result.getTime(Stage.TRANSFORM));
+            }
+        }
+    }
+
+    @Test
+    public void canStopInvalidDocuments() throws Exception {
+        XmlPipeline<XML> pipeline = XmlPipeline.newPipeline()
+                .setValidator(() -> xml -> new ValidationResult(false, "Rejected"))
+                .setTransformer(() -> xml -> {
+                    throw new IllegalStateException("Should not transform");
+                });
+        try (Stream<Result<XML>> results = pipeline.process(documents(1))) {
+            Result<XML> result = results.findFirst().get();
+            assertFalse(result.isSuccess());
+            assertNull(result.getValue());
+            assertNull(result.getFailure());
+            assertEquals("Rejected", result.getValidation().getFaults().get(0));
+            assertEquals(0, result.getTime(Stage.TRANSFORM));
+        }
+    }
+
+    @Test
+    public void canRecordFailures() throws Exception {
+        List<TextDataSource> sources = new ArrayList<>(documents(2));
+        sources.add(1, new StringDataSource("<a><b></a>"));
+        try (Stream<Result<XML>> results = XmlPipeline.newPipeline().process(sources)) {
+            List<Result<XML>> processed = results.collect(toList());
+            assertTrue(processed.get(0).isSuccess());
+            assertFalse(processed.get(1).isSuccess());
+            assertThat(processed.get(1).getFailure(), instanceOf(BadFormatException.class));
+            assertTrue(processed.get(2).isSuccess());
+        }
+    }
+
+    @Test
+    public void canReuseStagesOnEachThread() throws Exception {
+        AtomicInteger validators = new AtomicInteger();
+        XmlPipeline<XML> pipeline = XmlPipeline.newPipeline().setThreads(3).setValidator(() -> {
+            validators.incrementAndGet();
+            return xml -> new ValidationResult(true);
+        });
+        try (Stream<Result<XML>> results = pipeline.process(documents(100))) {
+            assertEquals(100, results.filter(Result::isSuccess).count());
+        }
+        assertThat(validators.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void canLimitDocumentsReadAhead() throws Exception {
+        AtomicInteger read = new AtomicInteger();
+        Iterator<TextDataSource> documents = documents(100).iterator();
+        Iterator<TextDataSource> sources = new Iterator<TextDataSource>() {
+
+            @Override
+            public boolean hasNext() {
+                return documents.hasNext();
+            }
+
+            @Override
+            public TextDataSource next() {
+                read.incrementAndGet();
+                return documents.next();
+            }
+        };
+        try (Stream<Result<XML>> results = XmlPipeline.newPipeline().setThreads(2).setCapacity(5).process(sources)) {
+            Iterator<Result<XML>> iterator = results.iterator();
+            iterator.next();
+            assertThat(read.get(), lessThanOrEqualTo(6));
+        }
+    }
+
+    private static List<TextDataSource> documents(final int count) {
+        List<TextDataSource> documents = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            documents.add(new StringDataSource("<a id=\"" + i + "\"><b>" + i + "</b></a>"));
+        }
+        return documents;
+    }
+
+    private static final class IntegerMarshaller implements XmlMarshaller<Integer> {
+
+        @Override
+        public Integer unmarshal(final XML xml) {
+            return Integer.valueOf(xml.findTextByXpath("/b"));
+        }
+
+        @Override
+        public XML marshall(final Integer raw) {
+            return XML.of("<b>" + raw + "</b>");
+        }
+    }
+
+    private static final class StringDataSource implements TextDataSource {
+
+        private final String text;
+
+        private StringDataSource(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public Reader getReader() {
+            return new StringReader(text);
+        }
+
+        @Override
+        public InputStream getStream() {
+            return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
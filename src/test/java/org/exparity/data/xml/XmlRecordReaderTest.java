@@ -0,0 +1,131 @@
+package org.exparity.data.xml;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.XML;
+import org.exparity.data.types.Pair;
+import org.exparity.data.xml.matchers.XPathMatcher;
+import org.exparity.data.xml.parser.XmlParserBuilder;
+import org.exparity.data.xml.selectors.XPathStringSelector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class XmlRecordReaderTest {
+
+    private static final String FEED = "<feed><title>Prices</title>"
+            + "<item id=\"1\"><title>A</title><price>1.5</price></item>"
+            + "<other><item id=\"2\"><title>B</title></item></other>"
+            + "<item id=\"3\"><title>C</title><price>2.5</price><item id=\"4\"/></item>"
+            + "</feed>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canStreamRecordsByAbsolutePath() throws Exception {
+        try (Stream<XML> items = XML.stream(stream(FEED), "/feed/item")) {
+            assertThat(items.map(item -> item.findTextByXpath("/item/@id")).collect(toList()), contains("1", "3"));
+        }
+    }
+
+    @Test
+    public void canStreamRecordsByDescendantPath() throws Exception {
+        try (Stream<XML> items = XML.stream(stream(FEED), "//item")) {
+            assertThat(items.map(item -> item.findTextByXpath("/item/@id")).collect(toList()),
+                    contains("1", "2", "3"));
+        }
+    }
+
+    @Test
+    public void canStreamRecordsByRelativePath() throws Exception {
+        try (Stream<XML> items = XML.stream(stream(FEED), "other/item")) {
+            assertThat(items.map(item -> item.findTextByXpath("/item/title")).collect(toList()), contains("B"));
+        }
+    }
+
+    @Test
+    public void canKeepNestedElementsWithinRecord() throws Exception {
+        try (Stream<XML> items = XML.stream(stream(FEED), "/feed/item")) {
+            List<XML> records = items.collect(toList());
+            assertEquals(1, records.get(1).findElementsByXpath("/item/item").size());
+        }
+    }
+
+    @Test
+    public void canUseSelectorsAndMatchersOnRecords() throws Exception {
+        XmlMatcher hasPrice = new XPathMatcher("/item/price");
+        XmlSelector<List<String>> titles = new XPathStringSelector("/item/title");
+        try (Stream<XML> items = XML.stream(stream(FEED), "//item")) {
+            assertThat(items.filter(hasPrice::matches).map(titles::select).collect(toList()),
+                    contains(contains("A"), contains("C")));
+        }
+    }
+
+    @Test
+    public void canIterateRecords() throws Exception {
+        try (XmlRecordReader reader = XmlRecordReader.open(stream(FEED), "/feed/item")) {
+            assertTrue(reader.hasNext());
+            assertEquals("1", reader.next().findTextByXpath("/item/@id"));
+            assertEquals("3", reader.next().findTextByXpath("/item/@id"));
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void canCopyNamespacesOntoRecords() throws Exception {
+        String xml = "<f:feed xmlns:f=\"urn:feed\" xmlns=\"urn:item\"><item><f:name>A</f:name></item></f:feed>";
+        try (XmlRecordReader reader = XmlRecordReader.open(stream(xml), "/feed/item").setNamespaceAware(true)) {
+            XML record = reader.next();
+            assertEquals("A", record.findTextByXpath("/i:item/f:name", Pair.create("i", "urn:item"),
+                    Pair.create("f", "urn:feed")));
+            XmlParser parser = XmlParserBuilder.newParserFactory().setNamespaceAware(true).build();
+            XML reparsed = XML.of(record.getText(), parser);
+            assertEquals("A", reparsed.findTextByXpath("/i:item/f:name", Pair.create("i", "urn:item"),
+                    Pair.create("f", "urn:feed")));
+        }
+    }
+
+    @Test
+    public void canStreamFile() throws Exception {
+        File file = folder.newFile("feed.xml");
+        Files.write(file.toPath(), FEED.getBytes(StandardCharsets.UTF_8));
+        try (Stream<XML> items = XML.streamFile(file, "/feed/item")) {
+            assertEquals(2, items.count());
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void canFailOnInvalidXml() throws Exception {
+        try (Stream<XML> items = XML.stream(stream("<feed><item></feed>"), "/feed/item")) {
+            items.count();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void canFailOnInvalidPath() throws Exception {
+        XmlRecordReader.open(stream(FEED), "/feed/item[@id='1']");
+    }
+
+    private static InputStream stream(final String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
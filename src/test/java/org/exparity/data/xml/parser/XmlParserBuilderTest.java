@@ -0,0 +1,116 @@
+package org.exparity.data.xml.parser;
+
+import static org.exparity.data.xml.parser.XmlParserBuilder.newParserFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.exparity.data.BadFormatException;
+import org.exparity.data.XML;
+import org.exparity.data.xml.XmlParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Stewart Bissett
+ */
+public class XmlParserBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canReuseParserForManyDocuments() throws Exception {
+        XmlParser parser = newParserFactory().build();
+        XML first = parser.parse(stream("<a>1</a>"));
+        XML second = parser.parse(stream("<b>2</b>"));
+        assertNotSame(first.asDocument(), second.asDocument());
+        assertEquals("1", first.findTextByXpath("/a"));
+        assertEquals("2", second.findTextByXpath("/b"));
+    }
+
+    @Test
+    public void canReuseParserAfterFailure() throws Exception {
+        XmlParser parser = newParserFactory().build();
+        try {
+            parser.parse(stream("<a><b></a>"));
+        } catch (BadFormatException e) {
+            // Expected
+        }
+        assertEquals("1", parser.parse(stream("<a>1</a>")).findTextByXpath("/a"));
+    }
+
+    @Test
+    public void canParseFromReader() throws Exception {
+        XML xml = newParserFactory().build().parse(new StringReader("<a>café €</a>"));
+        assertEquals("café €", xml.findTextByXpath("/a"));
+        assertEquals("café €", XML.of("<a>café €</a>").findTextByXpath("/a"));
+    }
+
+    @Test
+    public void canParseOnManyThreads() throws Exception {
+        XmlParser parser = newParserFactory().build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; ++i) {
+                String value = String.valueOf(i);
+                Callable<String> task = () -> parser.parse(stream("<a>" + value + "</a>")).findTextByXpath("/a");
+                results.add(executor.submit(task));
+            }
+            for (int i = 0; i < 100; ++i) {
+                assertEquals(String.valueOf(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void canExpandExternalEntitiesByDefault() throws Exception {
+        String xml = documentWithExternalEntity();
+        assertEquals("secret", newParserFactory().build().parse(stream(xml)).findTextByXpath("/a"));
+    }
+
+    @Test
+    public void canDisableExternalEntities() throws Exception {
+        String xml = documentWithExternalEntity();
+        XmlParser parser = newParserFactory().setExternalEntities(false).build();
+        assertEquals("", parser.parse(stream(xml)).findTextByXpath("/a"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void canLoadExternalDtdByDefault() throws Exception {
+        newParserFactory().build().parse(stream(documentWithMissingDtd()));
+    }
+
+    @Test
+    public void canDisableLoadingExternalDtd() throws Exception {
+        XmlParser parser = newParserFactory().setLoadExternalDtd(false).build();
+        assertEquals("1", parser.parse(stream(documentWithMissingDtd())).findTextByXpath("/a"));
+    }
+
+    private String documentWithExternalEntity() {
+        return "<!DOCTYPE a [<!ENTITY secret SYSTEM \"http://www.exparity.org/external-entity.txt\">]><a>&secret;</a>";
+    }
+
+    private String documentWithMissingDtd() throws Exception {
+        File missing = new File(folder.getRoot(), "missing.dtd");
+        return "<!DOCTYPE a SYSTEM \"" + missing.toURI() + "\"><a>1</a>";
+    }
+
+    private static ByteArrayInputStream stream(final String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}